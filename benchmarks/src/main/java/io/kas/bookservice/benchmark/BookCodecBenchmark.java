@@ -0,0 +1,72 @@
+package io.kas.bookservice.benchmark;
+
+import io.kas.bookservice.config.MongoConfig;
+import io.kas.bookservice.model.Book;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// Mongo POJO codec round trip of a Book, the same registry MongoConfig hands to the driver.
+// decodeVersionOnly is what a conditional GET that ends in 304 decodes instead of decode
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class BookCodecBenchmark {
+
+  private Codec<Book> codec;
+  private Book book;
+  private byte[] encoded;
+  private byte[] encodedVersionOnly;
+
+  @Setup
+  public void setUp() {
+    codec = CodecRegistries.withUuidRepresentation(MongoConfig.pojoCodecRegistry(), MongoConfig.UUID_REPRESENTATION)
+        .get(Book.class);
+    book = BookFixtures.book(42);
+    encoded = encode();
+    encodedVersionOnly = encode(Book.builder().id(book.getId()).version(book.getVersion()).build());
+    System.out.printf("%nBook document size: full=%d bytes, version only=%d bytes%n",
+        encoded.length, encodedVersionOnly.length);
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return encode(book);
+  }
+
+  @Benchmark
+  public Book decode() {
+    return codec.decode(new BsonBinaryReader(ByteBuffer.wrap(encoded)), DecoderContext.builder().build());
+  }
+
+  @Benchmark
+  public Book decodeVersionOnly() {
+    return codec.decode(new BsonBinaryReader(ByteBuffer.wrap(encodedVersionOnly)), DecoderContext.builder().build());
+  }
+
+  private byte[] encode(Book value) {
+    BasicOutputBuffer buffer = new BasicOutputBuffer();
+    codec.encode(new BsonBinaryWriter(buffer), value, EncoderContext.builder().build());
+    return buffer.toByteArray();
+  }
+}
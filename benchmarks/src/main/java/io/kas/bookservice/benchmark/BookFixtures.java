@@ -0,0 +1,110 @@
+package io.kas.bookservice.benchmark;
+
+import io.kas.bookservice.dto.BookDto;
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.model.Category;
+import io.kas.bookservice.model.Language;
+import io.kas.bookservice.model.PromoInfo;
+import io.kas.bookservice.model.Status;
+import io.kas.bookservice.util.mapper.BookMapper;
+import io.kas.bookservice.util.pricing.BookPricing;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// Deterministic, realistically sized payloads so results are comparable across commits
+public final class BookFixtures {
+
+  private static final String[] WORDS = {
+      "river", "shadow", "empire", "garden", "winter", "letters", "machine", "harbor", "silence",
+      "orchard", "voyage", "memory", "atlas", "lantern", "kingdom", "signal", "archive", "meadow"
+  };
+
+  // Promo windows are laid out around this instant and run for years, so they are active whenever
+  // the benchmarks run
+  private static final Instant PRICED_AT = Instant.parse("2025-01-01T00:00:00Z");
+
+  private BookFixtures() {
+  }
+
+  public static List<Book> books(int count, long seed) {
+    Random random = new Random(seed);
+    List<Book> books = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      books.add(book(random));
+    }
+    return books;
+  }
+
+  public static Book book(long seed) {
+    return book(new Random(seed));
+  }
+
+  public static BookDto bookDto(long seed) {
+    return BookMapper.INSTANCE.toDto(book(seed));
+  }
+
+  private static Book book(Random random) {
+    List<String> authors = new ArrayList<>();
+    int authorCount = 3 + random.nextInt(8);
+    for (int i = 0; i < authorCount; i++) {
+      authors.add(capitalize(word(random)) + " " + capitalize(word(random)) + "ova");
+    }
+
+    List<PromoInfo> promos = new ArrayList<>();
+    int promoCount = random.nextInt(3);
+    for (int i = 0; i < promoCount; i++) {
+      Instant validFrom = PRICED_AT.minus(Duration.ofDays(1 + random.nextInt(90)));
+      promos.add(PromoInfo.builder()
+          .id(new UUID(random.nextLong(), random.nextLong()))
+          .value(5 + random.nextInt(40))
+          .validFrom(validFrom)
+          .validUntil(validFrom.plus(Duration.ofDays(3650 + random.nextInt(365))))
+          .build());
+    }
+
+    Book book = Book.builder()
+        .id(new UUID(random.nextLong(), random.nextLong()))
+        .title(capitalize(word(random)) + " of the " + capitalize(word(random)))
+        .authors(authors)
+        .description(sentence(random, 400 + random.nextInt(800)))
+        .coverImage("https://cdn.example.com/covers/" + Long.toHexString(random.nextLong()) + ".jpg")
+        .category(Category.values()[random.nextInt(Category.values().length)])
+        .publisher(capitalize(word(random)) + " Press")
+        .publishedYear(1900 + random.nextInt(125))
+        .language(Language.values()[random.nextInt(Language.values().length)])
+        .pageCount(80 + random.nextInt(900))
+        .promos(promos.isEmpty() ? null : promos)
+        .price(BigDecimal.valueOf(100 + random.nextInt(900000), 2))
+        .discount(random.nextInt(50))
+        .status(Status.PUBLISHED)
+        .version((long) random.nextInt(20))
+        .build();
+    BookPricing.apply(book, PRICED_AT);
+    return book;
+  }
+
+  private static String sentence(Random random, int words) {
+    StringBuilder builder = new StringBuilder(words * 8);
+    for (int i = 0; i < words; i++) {
+      if (i > 0) {
+        builder.append(i % 14 == 0 ? ". " : " ");
+      }
+      builder.append(word(random));
+    }
+    return builder.append('.').toString();
+  }
+
+  private static String word(Random random) {
+    return WORDS[random.nextInt(WORDS.length)];
+  }
+
+  private static String capitalize(String word) {
+    return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+  }
+}
@@ -0,0 +1,47 @@
+package io.kas.bookservice.benchmark;
+
+import io.kas.bookservice.dto.BookDto;
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.util.mapper.BookMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class BookMapperBenchmark {
+
+  private final BookMapper bookMapper = BookMapper.INSTANCE;
+
+  private Book book;
+  private BookDto bookDto;
+
+  @Setup
+  public void setUp() {
+    book = BookFixtures.book(42);
+    bookDto = bookMapper.toDto(book);
+  }
+
+  @Benchmark
+  public BookDto toDto() {
+    return bookMapper.toDto(book);
+  }
+
+  @Benchmark
+  public Book toEntity() {
+    return bookMapper.toEntity(bookDto);
+  }
+}
@@ -0,0 +1,107 @@
+package io.kas.bookservice.benchmark;
+
+import com.mongodb.reactivestreams.client.ClientSession;
+import io.kas.bookservice.exception.BookNotFoundException;
+import io.kas.bookservice.exception.OptimisticLockingFailureException;
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.model.BookField;
+import io.kas.bookservice.repository.BookDao;
+import io.kas.bookservice.util.metrics.BookMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Map-backed BookDao for the service pipeline benchmarks, keeps the version semantics of the real one
+public class InMemoryBookDao extends BookDao {
+
+  private final Map<UUID, Book> books = new ConcurrentHashMap<>();
+  private Duration transactionRoundTrip = Duration.ZERO;
+
+  public InMemoryBookDao() {
+    super(InMemoryMongo.client(), new BookMetrics(new SimpleMeterRegistry()));
+  }
+
+  @Override
+  public Mono<Book> saveWithSession(Book book, ClientSession session) {
+    if (book.getVersion() == null) {
+      book.setVersion(0L);
+    }
+    books.put(book.getId(), book);
+    return Mono.just(book);
+  }
+
+  @Override
+  public Flux<Book> findAll(List<String> fields, int batchSize) {
+    return Flux.fromIterable(books.values());
+  }
+
+  @Override
+  public Mono<Book> findById(UUID id) {
+    return Mono.justOrEmpty(books.get(id));
+  }
+
+  @Override
+  public Flux<Book> findByIds(Collection<UUID> ids, List<String> fields) {
+    return Flux.fromIterable(ids).mapNotNull(books::get);
+  }
+
+  @Override
+  public Mono<Long> findVersionById(UUID id) {
+    return Mono.justOrEmpty(books.get(id)).map(Book::getVersion);
+  }
+
+  @Override
+  public Mono<Long> findVersionByIdWithSession(UUID id, ClientSession session) {
+    return findVersionById(id);
+  }
+
+  @Override
+  public Mono<Book> updateWithSession(UUID id, long expectedVersion, Book book, Set<BookField> changedFields,
+                                      ClientSession session) {
+    return Mono.fromCallable(() -> {
+      Book existing = books.get(id);
+      if (existing == null) {
+        throw new BookNotFoundException("Book not found with id: " + id);
+      }
+      if (existing.getVersion() != expectedVersion) {
+        throw new OptimisticLockingFailureException("Book " + id + " was modified concurrently");
+      }
+      // Stored books may be shared with the cache, the update works on a copy like a round trip would
+      Book updated = Book.builder()
+          .id(id)
+          .version(expectedVersion + 1)
+          .build();
+      for (BookField field : BookField.values()) {
+        field.copy(changedFields.contains(field) ? book : existing, updated);
+      }
+      books.put(id, updated);
+      return updated;
+    });
+  }
+
+  @Override
+  public Mono<Book> findAndDeleteWithSession(UUID id, ClientSession session) {
+    return Mono.justOrEmpty(books.remove(id));
+  }
+
+  @Override
+  public Mono<ClientSession> startSession() {
+    return Mono.just(InMemoryMongo.session(transactionRoundTrip));
+  }
+
+  public void setTransactionRoundTrip(Duration transactionRoundTrip) {
+    this.transactionRoundTrip = transactionRoundTrip;
+  }
+
+  public void put(Book book) {
+    books.put(book.getId(), book);
+  }
+}
@@ -0,0 +1,65 @@
+package io.kas.bookservice.benchmark;
+
+import com.mongodb.reactivestreams.client.ClientSession;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+
+// Driver stand-ins that let the DAOs be constructed without a server: every publisher
+// completes empty and every other call is a no-op. Sessions can delay commit and abort to stand in
+// for the round trip a transaction costs against a real replica set
+public final class InMemoryMongo {
+
+  private InMemoryMongo() {
+  }
+
+  public static MongoClient client() {
+    return stub(MongoClient.class, Duration.ZERO);
+  }
+
+  public static ClientSession session() {
+    return session(Duration.ZERO);
+  }
+
+  public static ClientSession session(Duration transactionRoundTrip) {
+    return stub(ClientSession.class, transactionRoundTrip);
+  }
+
+  private static <T> T stub(Class<T> type, Duration transactionRoundTrip) {
+    Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+      Class<?> returnType = method.getReturnType();
+      if (!transactionRoundTrip.isZero()
+          && (method.getName().equals("commitTransaction") || method.getName().equals("abortTransaction"))) {
+        return Mono.delay(transactionRoundTrip).then();
+      }
+      if (returnType == MongoDatabase.class) {
+        return stub(MongoDatabase.class, Duration.ZERO);
+      }
+      if (returnType == MongoCollection.class) {
+        return stub(MongoCollection.class, Duration.ZERO);
+      }
+      if (Publisher.class.isAssignableFrom(returnType)) {
+        return Mono.empty();
+      }
+      if (returnType == boolean.class) {
+        return method.getName().equals("equals") && self == args[0];
+      }
+      if (returnType == long.class) {
+        return 0L;
+      }
+      if (returnType == int.class) {
+        return method.getName().equals("hashCode") ? System.identityHashCode(self) : 0;
+      }
+      if (method.getName().equals("toString")) {
+        return type.getSimpleName() + "Stub";
+      }
+      return null;
+    });
+    return type.cast(proxy);
+  }
+}
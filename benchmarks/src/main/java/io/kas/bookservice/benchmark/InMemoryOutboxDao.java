@@ -0,0 +1,69 @@
+package io.kas.bookservice.benchmark;
+
+import com.mongodb.reactivestreams.client.ClientSession;
+import io.kas.bookservice.model.OutboxEvent;
+import io.kas.bookservice.repository.OutboxDao;
+import org.bson.types.ObjectId;
+import io.kas.bookservice.util.metrics.BookMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class InMemoryOutboxDao extends OutboxDao {
+
+  private final ConcurrentSkipListMap<ObjectId, OutboxEvent> events = new ConcurrentSkipListMap<>();
+  private final ConcurrentHashMap<String, Long> sequences = new ConcurrentHashMap<>();
+
+  public InMemoryOutboxDao() {
+    super(InMemoryMongo.client(), new BookMetrics(new SimpleMeterRegistry()));
+  }
+
+  @Override
+  public Mono<OutboxEvent> saveWithSession(OutboxEvent event, ClientSession session) {
+    if (event.getId() == null) {
+      event.setId(new ObjectId());
+    }
+    event.setSequence(sequences.merge(event.getKey(), 1L, Long::sum));
+    events.put(event.getId(), event);
+    return Mono.just(event);
+  }
+
+  @Override
+  public Mono<Void> saveAllWithSession(List<OutboxEvent> batch, ClientSession session) {
+    return Flux.fromIterable(batch).flatMap(event -> saveWithSession(event, session)).then();
+  }
+
+  @Override
+  public Flux<OutboxEvent> findOldest(int limit) {
+    return Flux.fromIterable(events.values()).take(limit);
+  }
+
+  @Override
+  public Flux<OutboxEvent> findPendingByKeys(Collection<String> keys) {
+    Set<String> pending = Set.copyOf(keys);
+    return Flux.fromStream(events.values().stream()
+        .filter(event -> pending.contains(event.getKey()))
+        .sorted(Comparator.comparing(OutboxEvent::getKey).thenComparing(OutboxEvent::getSequence)));
+  }
+
+  @Override
+  public Mono<Long> deleteByIds(List<ObjectId> ids) {
+    return Mono.fromCallable(() -> ids.stream().filter(id -> events.remove(id) != null).count());
+  }
+
+  public int size() {
+    return events.size();
+  }
+
+  public void clear() {
+    events.clear();
+    sequences.clear();
+  }
+}
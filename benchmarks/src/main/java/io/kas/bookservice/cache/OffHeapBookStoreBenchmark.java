@@ -0,0 +1,63 @@
+package io.kas.bookservice.cache;
+
+import io.kas.bookservice.benchmark.BookFixtures;
+import io.kas.bookservice.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Off-heap tier over a catalog far larger than the heap tier would hold: a hit decodes the stored
+// BSON, a put encodes and appends it. Run with -prof gc, the stored books add nothing to the heap
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms256m", "-Xmx256m", "-XX:MaxDirectMemorySize=1g"})
+@State(Scope.Benchmark)
+public class OffHeapBookStoreBenchmark {
+
+  private static final int BOOKS = 50_000;
+  private static final int BATCH = 1_000;
+
+  private OffHeapBookStore store;
+  // Only the ids stay on the heap, and one batch of books for put
+  private UUID[] ids;
+  private List<Book> batch;
+
+  @Setup
+  public void setUp() {
+    store = new OffHeapBookStore(512L << 20, 64 << 20, 2 * BOOKS, Duration.ofHours(1).toMillis());
+    ids = new UUID[BOOKS];
+    for (int i = 0; i < BOOKS; i += BATCH) {
+      batch = BookFixtures.books(BATCH, i);
+      for (int j = 0; j < BATCH; j++) {
+        store.put(batch.get(j));
+        ids[i + j] = batch.get(j).getId();
+      }
+    }
+    System.out.printf("%nOff-heap tier: %d books in %d bytes%n", BOOKS, store.usedBytes());
+  }
+
+  @Benchmark
+  public Book get() {
+    return store.get(ids[ThreadLocalRandom.current().nextInt(BOOKS)]);
+  }
+
+  @Benchmark
+  public void put() {
+    store.put(batch.get(ThreadLocalRandom.current().nextInt(BATCH)));
+  }
+}
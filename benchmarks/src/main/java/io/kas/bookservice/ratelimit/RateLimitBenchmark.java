@@ -0,0 +1,69 @@
+package io.kas.bookservice.ratelimit;
+
+import io.kas.bookservice.config.RateLimitProperties;
+import io.kas.bookservice.util.metrics.BookMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Per-request admission cost of RateLimitFilter: a token bucket plus a concurrency permit, and the
+// limit update every BookDao call feeds in
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class RateLimitBenchmark {
+
+  private static final int CLIENTS = 1_000;
+
+  private TokenBucket[] buckets;
+  private AdaptiveConcurrencyLimiter limiter;
+
+  @Setup
+  public void setUp() {
+    buckets = new TokenBucket[CLIENTS];
+    for (int i = 0; i < CLIENTS; i++) {
+      buckets[i] = new TokenBucket(1_000_000, 1_000_000, System.nanoTime());
+    }
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    limiter = new AdaptiveConcurrencyLimiter(new RateLimitProperties(true, "X-Client-Id", false, "X-Forwarded-For",
+        Set.of(), 100_000,
+        new RateLimitProperties.Bucket(200, 400),
+        new RateLimitProperties.Bucket(50, 100),
+        new RateLimitProperties.Concurrency(64, 8, 1024, 0.5, 2.0, Set.of("export"), Duration.ofSeconds(1))),
+        new BookMetrics(registry), registry);
+  }
+
+  @Benchmark
+  public boolean admit() {
+    long wait = buckets[ThreadLocalRandom.current().nextInt(CLIENTS)].tryAcquire(System.nanoTime());
+    boolean admitted = wait == 0 && limiter.tryAcquire(false);
+    if (admitted) {
+      limiter.release(false);
+    }
+    return admitted;
+  }
+
+  @Benchmark
+  public int recordLatency() {
+    limiter.onMongoLatency("findById", 200_000 + ThreadLocalRandom.current().nextInt(100_000));
+    return limiter.getLimit();
+  }
+}
@@ -0,0 +1,99 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.benchmark.InMemoryBookDao;
+import io.kas.bookservice.benchmark.InMemoryMongo;
+import io.kas.bookservice.benchmark.InMemoryOutboxDao;
+import io.kas.bookservice.cache.BookCache;
+import io.kas.bookservice.config.BookKafkaProperties;
+import io.kas.bookservice.config.BulkProperties;
+import io.kas.bookservice.config.CacheProperties;
+import io.kas.bookservice.config.EventsProperties;
+import io.kas.bookservice.config.ExportProperties;
+import io.kas.bookservice.config.IdempotencyProperties;
+import io.kas.bookservice.config.PaginationProperties;
+import io.kas.bookservice.config.SearchIndexProperties;
+import io.kas.bookservice.config.SearchProperties;
+import io.kas.bookservice.config.UpdateProperties;
+import io.kas.bookservice.config.WriteProperties;
+import io.kas.bookservice.dto.events.BookEvent;
+import io.kas.bookservice.index.BookSearchIndex;
+import io.kas.bookservice.repository.CatalogStatsDao;
+import io.kas.bookservice.repository.IdempotencyDao;
+import io.kas.bookservice.util.mapper.BookMapper;
+import io.kas.bookservice.util.metrics.BookMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.sender.KafkaSender;
+
+import java.time.Duration;
+
+// Wires BookService the way Spring does, with in-memory stand-ins and the defaults of application.yaml
+final class BenchmarkServices {
+
+  private BenchmarkServices() {
+  }
+
+  static BookMetrics metrics() {
+    return new BookMetrics(new SimpleMeterRegistry());
+  }
+
+  static BookCache bookCache(InMemoryBookDao bookDao) {
+    return new BookCache(bookDao, new CacheProperties(100_000, Duration.ofMinutes(10),
+        new CacheProperties.OffHeap(false, DataSize.ofGigabytes(1), DataSize.ofMegabytes(64), 1_000_000,
+            Duration.ofHours(1))), new SimpleMeterRegistry());
+  }
+
+  static BookEventPublisher publisher(KafkaSender<String, BookEvent> kafkaSender) {
+    return new BookEventPublisher(kafkaSender, new BookKafkaProperties("localhost:9092",
+        BookKafkaProperties.EventFormat.JSON,
+        new BookKafkaProperties.Producer(true, 65536, Duration.ofMillis(5), "lz4", 64L << 20, 1024,
+            Duration.ofMillis(100), Duration.ofSeconds(15), Duration.ofSeconds(25), 8192)));
+  }
+
+  static BookSearchIndex searchIndex(InMemoryBookDao bookDao, boolean enabled) {
+    return new BookSearchIndex(bookDao, searchIndexProperties(enabled), new SimpleMeterRegistry());
+  }
+
+  static BookService bookService(InMemoryBookDao bookDao, InMemoryOutboxDao outboxDao, BookCache bookCache) {
+    return bookService(bookDao, outboxDao, bookCache, WriteProperties.WriteMode.TRANSACTIONAL);
+  }
+
+  static BookService bookService(InMemoryBookDao bookDao, InMemoryOutboxDao outboxDao, BookCache bookCache,
+                                 WriteProperties.WriteMode writeMode) {
+    return bookService(bookDao, outboxDao, bookCache, writeMode, EventsProperties.Source.OUTBOX);
+  }
+
+  static BookService bookService(InMemoryBookDao bookDao, InMemoryOutboxDao outboxDao, BookCache bookCache,
+                                 WriteProperties.WriteMode writeMode, EventsProperties.Source eventSource) {
+    return new BookService(
+        bookDao,
+        bookCache,
+        searchIndex(bookDao, false),
+        BookMapper.INSTANCE,
+        outboxDao,
+        new IdempotencyDao(InMemoryMongo.client(), metrics()),
+        new CatalogStatsDao(InMemoryMongo.client(), metrics()),
+        new PaginationProperties(20, 200, 500),
+        new SearchProperties(20, 100, 1000, Duration.ofSeconds(2)),
+        searchIndexProperties(false),
+        new ExportProperties(1000),
+        new BulkProperties(1000, 2),
+        new UpdateProperties(3, Duration.ofMillis(5)),
+        new IdempotencyProperties(Duration.ofHours(24), 255, 5, Duration.ofMillis(20)),
+        new WriteProperties(writeMode),
+        new EventsProperties(eventSource, new EventsProperties.ChangeStream(
+            500, Duration.ofMillis(50), Duration.ofSeconds(30), Duration.ofSeconds(10))),
+        Validation.buildDefaultValidatorFactory().getValidator(),
+        Jackson2ObjectMapperBuilder.json().build(),
+        Schedulers.immediate(),
+        metrics()
+    );
+  }
+
+  private static SearchIndexProperties searchIndexProperties(boolean enabled) {
+    return new SearchIndexProperties(enabled, 5000, 10, 50);
+  }
+}
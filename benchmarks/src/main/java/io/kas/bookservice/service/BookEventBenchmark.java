@@ -0,0 +1,115 @@
+package io.kas.bookservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.kas.bookservice.benchmark.BookFixtures;
+import io.kas.bookservice.benchmark.InMemoryBookDao;
+import io.kas.bookservice.benchmark.InMemoryOutboxDao;
+import io.kas.bookservice.dto.events.BookEvent;
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.model.BookField;
+import io.kas.bookservice.util.serializer.BookEventBinarySerializer;
+import io.kas.bookservice.util.serializer.BookEventDeserializer;
+import io.kas.bookservice.util.serializer.BookEventSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+// Event construction and Kafka serialization for one write. Run with -prof gc for the bytes
+// allocated per event, serializeObjectMapper is the databind baseline of the streaming serializer
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class BookEventBenchmark {
+
+  private BookService bookService;
+  private BookEventSerializer serializer;
+  private ObjectWriter objectWriter;
+  private BookEventBinarySerializer binarySerializer;
+  private BookEventDeserializer deserializer;
+  private Book book;
+  private BookEvent event;
+  private BookEvent deltaEvent;
+  private byte[] jsonEvent;
+  private byte[] binaryEvent;
+
+  @Setup
+  public void setUp() {
+    InMemoryBookDao bookDao = new InMemoryBookDao();
+    bookService = BenchmarkServices.bookService(
+        bookDao, new InMemoryOutboxDao(), BenchmarkServices.bookCache(bookDao));
+    serializer = new BookEventSerializer();
+    objectWriter = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .writerFor(BookEvent.class);
+    binarySerializer = new BookEventBinarySerializer();
+    deserializer = new BookEventDeserializer();
+    book = BookFixtures.book(42);
+    event = bookService.buildBookEvent(book, "BOOK_UPDATED");
+    jsonEvent = serializer.serialize("book-topic", event);
+    binaryEvent = binarySerializer.serialize("book-topic", event);
+    deltaEvent = bookService.buildBookUpdatedEvent(book, EnumSet.of(BookField.PRICE, BookField.STATUS));
+    // Payload size is part of the comparison, JMH only reports time
+    System.out.printf("%nBookEvent size: json=%d bytes, binary=%d bytes%n", jsonEvent.length, binaryEvent.length);
+    System.out.printf("Delta BookEvent size: json=%d bytes, binary=%d bytes%n",
+        serializer.serialize("book-topic", deltaEvent).length,
+        binarySerializer.serialize("book-topic", deltaEvent).length);
+  }
+
+  @Benchmark
+  public BookEvent buildBookEvent() {
+    return bookService.buildBookEvent(book, "BOOK_UPDATED");
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return serializer.serialize("book-topic", event);
+  }
+
+  @Benchmark
+  public byte[] serializeObjectMapper() throws JsonProcessingException {
+    return objectWriter.writeValueAsBytes(event);
+  }
+
+  @Benchmark
+  public byte[] serializeBinary() {
+    return binarySerializer.serialize("book-topic", event);
+  }
+
+  @Benchmark
+  public byte[] serializeDelta() {
+    return serializer.serialize("book-topic", deltaEvent);
+  }
+
+  @Benchmark
+  public BookEvent deserialize() {
+    return deserializer.deserialize("book-topic", jsonEvent);
+  }
+
+  @Benchmark
+  public BookEvent deserializeBinary() {
+    return deserializer.deserialize("book-topic", binaryEvent);
+  }
+
+  @Benchmark
+  public byte[] buildAndSerialize() {
+    return serializer.serialize("book-topic", bookService.buildBookEvent(book, "BOOK_UPDATED"));
+  }
+}
@@ -0,0 +1,72 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.benchmark.BookFixtures;
+import io.kas.bookservice.benchmark.InMemoryBookDao;
+import io.kas.bookservice.dto.BookSuggestion;
+import io.kas.bookservice.index.BookSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Autocomplete latency of the in-memory index, setup also prints the index size and its heap cost
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class BookSearchIndexBenchmark {
+
+  @Param({"100000"})
+  private int catalogSize;
+
+  private BookSearchIndex searchIndex;
+
+  @Setup
+  public void setUp() throws InterruptedException {
+    InMemoryBookDao bookDao = new InMemoryBookDao();
+    BookFixtures.books(catalogSize, 42).forEach(bookDao::put);
+
+    long heapBefore = usedHeap();
+    searchIndex = BenchmarkServices.searchIndex(bookDao, true);
+    searchIndex.bootstrap();
+    while (!searchIndex.isReady()) {
+      Thread.sleep(10);
+    }
+    System.out.printf("%nSearch index: %d books, %d terms, %d postings, ~%d MB heap%n",
+        searchIndex.documentCount(), searchIndex.termCount(), searchIndex.postingCount(),
+        (usedHeap() - heapBefore) >> 20);
+  }
+
+  @Benchmark
+  public List<BookSuggestion> singlePrefix() {
+    return searchIndex.autocomplete("sha", 10);
+  }
+
+  @Benchmark
+  public List<BookSuggestion> tokenAndPrefix() {
+    return searchIndex.autocomplete("kingdom of the lan", 10);
+  }
+
+  @Benchmark
+  public List<BookSuggestion> noMatch() {
+    return searchIndex.autocomplete("river zz", 10);
+  }
+
+  private static long usedHeap() {
+    System.gc();
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
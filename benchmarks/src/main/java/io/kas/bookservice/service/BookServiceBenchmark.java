@@ -0,0 +1,101 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.benchmark.BookFixtures;
+import io.kas.bookservice.benchmark.InMemoryBookDao;
+import io.kas.bookservice.benchmark.InMemoryOutboxDao;
+import io.kas.bookservice.cache.BookCache;
+import io.kas.bookservice.dto.BookDto;
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.util.mapper.BookMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// End-to-end BookService pipelines with Mongo replaced by in-memory DAOs, this isolates
+// the cost of mapping, event building, caching and the reactive assembly itself
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class BookServiceBenchmark {
+
+  private static final int CATALOG_SIZE = 10_000;
+
+  private InMemoryBookDao bookDao;
+  private InMemoryOutboxDao outboxDao;
+  private BookCache bookCache;
+  private BookService bookService;
+
+  private UUID[] ids;
+  private BookDto newBook;
+  private BookDto changedBook;
+  private int cursor;
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    bookDao = new InMemoryBookDao();
+    outboxDao = new InMemoryOutboxDao();
+    bookCache = BenchmarkServices.bookCache(bookDao);
+    bookService = BenchmarkServices.bookService(bookDao, outboxDao, bookCache);
+
+    List<Book> books = BookFixtures.books(CATALOG_SIZE, 42);
+    ids = new UUID[books.size()];
+    for (int i = 0; i < books.size(); i++) {
+      bookDao.put(books.get(i));
+      ids[i] = books.get(i).getId();
+    }
+
+    BookDto template = BookFixtures.bookDto(7);
+    newBook = withId(template, null);
+    changedBook = withId(template, null);
+  }
+
+  @Benchmark
+  public BookDto saveBook() {
+    return bookService.saveBook(Mono.just(newBook)).block();
+  }
+
+  @Benchmark
+  public BookDto getBookCached() {
+    return bookService.getBook(nextId()).block();
+  }
+
+  @Benchmark
+  public BookDto getBookUncached() {
+    UUID id = nextId();
+    bookCache.invalidate(id);
+    return bookService.getBook(id).block();
+  }
+
+  @Benchmark
+  public BookDto updateBook() {
+    return bookService.updateBook(Mono.just(changedBook), nextId(), null).block();
+  }
+
+  private UUID nextId() {
+    cursor = (cursor + 1) % ids.length;
+    return ids[cursor];
+  }
+
+  private static BookDto withId(BookDto dto, UUID id) {
+    Book book = BookMapper.INSTANCE.toEntity(dto);
+    book.setId(id);
+    book.setVersion(null);
+    return BookMapper.INSTANCE.toDto(book);
+  }
+}
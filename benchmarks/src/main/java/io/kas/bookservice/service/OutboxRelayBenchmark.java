@@ -0,0 +1,112 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.benchmark.BookFixtures;
+import io.kas.bookservice.benchmark.InMemoryMongo;
+import io.kas.bookservice.benchmark.InMemoryOutboxDao;
+import io.kas.bookservice.config.OutboxProperties;
+import io.kas.bookservice.dto.events.BookEvent;
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.model.OutboxEvent;
+import io.kas.bookservice.repository.ChangeStreamStateDao;
+import io.kas.bookservice.util.serializer.BookEventSerializer;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+import reactor.kafka.sender.internals.ProducerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Drains one outbox batch through reactor-kafka into a MockProducer that runs the real serializer
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class OutboxRelayBenchmark {
+
+  @Param({"100", "500"})
+  private int batchSize;
+
+  private InMemoryOutboxDao outboxDao;
+  private MockProducer<String, BookEvent> producer;
+  private KafkaSender<String, BookEvent> kafkaSender;
+  private BookEventPublisher publisher;
+  private OutboxRelay outboxRelay;
+  private List<OutboxEvent> events;
+
+  @Setup(Level.Trial)
+  public void setUpTrial() {
+    BookService bookService = BenchmarkServices.bookService(
+        null, null, BenchmarkServices.bookCache(null));
+    List<Book> books = BookFixtures.books(batchSize, 42);
+    events = books.stream()
+        .map(book -> {
+          BookEvent event = bookService.buildBookEvent(book, "BOOK_UPDATED");
+          return OutboxEvent.builder()
+              .key(book.getId().toString())
+              .event(event)
+              .createdAt(event.getOccurredAt())
+              .build();
+        })
+        .toList();
+
+    producer = new MockProducer<>(true, new StringSerializer(), new BookEventSerializer());
+    kafkaSender = KafkaSender.create(new ProducerFactory() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public <K, V> Producer<K, V> createProducer(SenderOptions<K, V> senderOptions) {
+        return (Producer<K, V>) producer;
+      }
+    }, SenderOptions.<String, BookEvent>create(Map.of()).stopOnError(false));
+    publisher = BenchmarkServices.publisher(kafkaSender);
+    publisher.start();
+
+    outboxDao = new InMemoryOutboxDao();
+    // The stand-in client acknowledges every lease renewal
+    ChangeStreamStateDao leaseDao = new ChangeStreamStateDao(InMemoryMongo.client(), BenchmarkServices.metrics());
+    outboxRelay = new OutboxRelay(outboxDao, leaseDao, publisher,
+        new OutboxProperties("book-topic", batchSize, Duration.ofMillis(200), Duration.ofSeconds(30),
+            Duration.ofMinutes(2)),
+        BenchmarkServices.metrics());
+  }
+
+  @Setup(Level.Invocation)
+  public void fillOutbox() {
+    producer.clear();
+    outboxDao.clear();
+    events.forEach(event -> {
+      event.setId(null);
+      outboxDao.saveWithSession(event, null).block();
+    });
+  }
+
+  @Benchmark
+  public void relayBatch() {
+    outboxRelay.relay().block();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    publisher.stop();
+    kafkaSender.close();
+  }
+}
@@ -0,0 +1,95 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.benchmark.BookFixtures;
+import io.kas.bookservice.benchmark.InMemoryBookDao;
+import io.kas.bookservice.benchmark.InMemoryOutboxDao;
+import io.kas.bookservice.config.EventsProperties;
+import io.kas.bookservice.config.WriteProperties;
+import io.kas.bookservice.dto.BookDto;
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.util.mapper.BookMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Transactional vs single-document writes, with the change stream as the event source since writes
+// that insert an outbox event are always transactional. transactionRoundTripMicros stands in for the
+// commit round trip of a replica set, at 0 only the client-side cost of the transaction remains
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Threads(8)
+@State(Scope.Benchmark)
+public class WriteModeBenchmark {
+
+  private static final int CATALOG_SIZE = 10_000;
+
+  @Param({"TRANSACTIONAL", "SINGLE_DOCUMENT"})
+  private WriteProperties.WriteMode writeMode;
+
+  @Param({"0", "500"})
+  private int transactionRoundTripMicros;
+
+  private BookService bookService;
+  private UUID[] ids;
+  private BookDto[] changes;
+  private BookDto newBook;
+  private final AtomicInteger cursor = new AtomicInteger();
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    InMemoryBookDao bookDao = new InMemoryBookDao();
+    bookDao.setTransactionRoundTrip(Duration.ofNanos(transactionRoundTripMicros * 1000L));
+    bookService = BenchmarkServices.bookService(bookDao, new InMemoryOutboxDao(), BenchmarkServices.bookCache(bookDao),
+        writeMode, EventsProperties.Source.CHANGE_STREAM);
+
+    List<Book> books = BookFixtures.books(CATALOG_SIZE, 42);
+    ids = new UUID[books.size()];
+    for (int i = 0; i < books.size(); i++) {
+      bookDao.put(books.get(i));
+      ids[i] = books.get(i).getId();
+    }
+    // Alternating bodies so every update really changes fields and is not elided as a no-op
+    changes = new BookDto[]{withoutId(BookFixtures.bookDto(7)), withoutId(BookFixtures.bookDto(8))};
+    newBook = withoutId(BookFixtures.bookDto(9));
+  }
+
+  @Benchmark
+  public BookDto saveBook() {
+    return bookService.saveBook(Mono.just(newBook)).block();
+  }
+
+  @Benchmark
+  public BookDto updateBook() {
+    int next = cursor.getAndIncrement() & Integer.MAX_VALUE;
+    return bookService.updateBook(Mono.just(changes[(next / ids.length) & 1]), ids[next % ids.length], null)
+        .onErrorResume(e -> Mono.empty())
+        .block();
+  }
+
+  private static BookDto withoutId(BookDto dto) {
+    Book book = BookMapper.INSTANCE.toEntity(dto);
+    book.setId(null);
+    book.setVersion(null);
+    return BookMapper.INSTANCE.toDto(book);
+  }
+}
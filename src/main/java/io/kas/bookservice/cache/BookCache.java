@@ -0,0 +1,220 @@
+package io.kas.bookservice.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.kas.bookservice.config.CacheProperties;
+import io.kas.bookservice.dto.events.BookEvent;
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.repository.BookDao;
+import io.kas.bookservice.service.BookEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+@Component
+public class BookCache implements BookEventListener {
+
+  private final BookDao bookDao;
+  private final AsyncCache<UUID, Book> cache;
+  // Null unless the off-heap tier is enabled
+  private final OffHeapBookStore offHeap;
+  // Off-heap copies older than the heap tier's expiry are checked against Mongo's version before use
+  private final long verifyAfterMillis;
+  private final Counter offHeapHits;
+  private final Counter offHeapMisses;
+  private final Counter offHeapStale;
+
+  // Maintenance and completion callbacks run on the calling thread. The default commonPool executor
+  // falls back to a new thread per task when the pool has a single worker (one or two CPUs)
+  public BookCache(BookDao bookDao, CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+    this.bookDao = bookDao;
+    this.verifyAfterMillis = cacheProperties.expireAfterWrite().toMillis();
+    this.cache = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+        .executor(Runnable::run)
+        .maximumSize(cacheProperties.maximumSize())
+        .expireAfterWrite(cacheProperties.expireAfterWrite())
+        .recordStats()
+        .<UUID, Book>buildAsync(), "books");
+
+    CacheProperties.OffHeap offHeapProperties = cacheProperties.offHeap();
+    if (offHeapProperties == null || !offHeapProperties.enabled()) {
+      this.offHeap = null;
+      this.offHeapHits = null;
+      this.offHeapMisses = null;
+      this.offHeapStale = null;
+      return;
+    }
+    this.offHeap = new OffHeapBookStore(
+        offHeapProperties.capacity().toBytes(),
+        (int) offHeapProperties.segmentSize().toBytes(),
+        offHeapProperties.maxEntries(),
+        offHeapProperties.expireAfterWrite().toMillis());
+    this.offHeapHits = Counter.builder("book.cache.offheap.requests").tag("result", "hit").register(meterRegistry);
+    this.offHeapMisses = Counter.builder("book.cache.offheap.requests").tag("result", "miss").register(meterRegistry);
+    this.offHeapStale = Counter.builder("book.cache.offheap.requests").tag("result", "stale").register(meterRegistry);
+    Gauge.builder("book.cache.offheap.bytes", offHeap, OffHeapBookStore::usedBytes).register(meterRegistry);
+    Gauge.builder("book.cache.offheap.slots", offHeap, OffHeapBookStore::occupiedSlots).register(meterRegistry);
+  }
+
+  // Concurrent misses for the same id share one loader call, a cancelled caller does not cancel it
+  public Mono<Book> get(UUID id, Function<UUID, Mono<Book>> loader) {
+    return Mono.fromFuture(() -> cache.get(id, (key, executor) -> load(key, loader).toFuture()), true);
+  }
+
+  // Only the ids missing from the cache are passed to the loader, in a single call
+  public Mono<Map<UUID, Book>> getAll(Collection<UUID> ids, Function<Set<UUID>, Mono<Map<UUID, Book>>> loader) {
+    return Mono.fromFuture(() -> cache.getAll(ids, (keys, executor) ->
+        loadAll(new HashSet<>(keys), loader).toFuture()), true);
+  }
+
+  public void put(Book book) {
+    cache.put(book.getId(), CompletableFuture.completedFuture(book));
+    if (offHeap != null) {
+      offHeap.put(book);
+    }
+  }
+
+  // Warm-start load of a stored document. The catalog goes to the off-heap tier when it is enabled,
+  // the heap tier would only keep its most recent maximumSize books
+  public void preload(UUID id, long version, byte[] document, int length, Instant readAt) {
+    if (offHeap != null) {
+      offHeap.put(id, version, document, length, readAt.toEpochMilli());
+    } else {
+      cache.put(id, CompletableFuture.completedFuture(OffHeapBookStore.decode(document, length)));
+    }
+  }
+
+  public void invalidateAll() {
+    cache.synchronous().invalidateAll();
+    if (offHeap != null) {
+      offHeap.removeAll();
+    }
+  }
+
+  public void invalidate(UUID id) {
+    cache.synchronous().invalidate(id);
+    if (offHeap != null) {
+      offHeap.remove(id);
+    }
+  }
+
+  // Writes on other instances reach this one through book-topic, an entry already at the event's
+  // version (typically this instance's own write) is kept
+  @Override
+  public void onEvent(BookEvent event) {
+    BookEvent.Payload payload = event.getPayload();
+    if (payload == null || payload.getBookId() == null) {
+      return;
+    }
+    if (!"BOOK_DELETED".equals(event.getEventType()) && payload.getVersion() != null) {
+      CompletableFuture<Book> cached = cache.getIfPresent(payload.getBookId());
+      if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+        Book book = cached.join();
+        if (book != null && book.getVersion() != null && book.getVersion() >= payload.getVersion()) {
+          return;
+        }
+      }
+      // The off-heap copy is kept when it is already at the event's version
+      cache.synchronous().invalidate(payload.getBookId());
+      if (offHeap != null) {
+        offHeap.removeOlderThan(payload.getBookId(), payload.getVersion());
+      }
+      return;
+    }
+    invalidate(payload.getBookId());
+  }
+
+  // A heap miss is served from the off-heap tier before the loader, loaded books are stored in both.
+  // A missed book-topic event would otherwise leave an off-heap copy stale until it expires, so a copy
+  // older than the heap tier's expiry is only served once Mongo still holds its version
+  private Mono<Book> load(UUID id, Function<UUID, Mono<Book>> loader) {
+    if (offHeap == null) {
+      return loader.apply(id);
+    }
+    return Mono.defer(() -> {
+      OffHeapBookStore.Entry stored = offHeap.getEntry(id);
+      if (stored == null) {
+        offHeapMisses.increment();
+        return loader.apply(id).doOnNext(offHeap::put);
+      }
+      if (System.currentTimeMillis() - stored.writtenAt() <= verifyAfterMillis) {
+        offHeapHits.increment();
+        return Mono.just(stored.book());
+      }
+      return verify(Map.of(id, stored.book()))
+          .flatMap(verified -> verified.isEmpty()
+              ? loader.apply(id).doOnNext(offHeap::put)
+              : Mono.just(stored.book()));
+    });
+  }
+
+  private Mono<Map<UUID, Book>> loadAll(Set<UUID> ids, Function<Set<UUID>, Mono<Map<UUID, Book>>> loader) {
+    if (offHeap == null) {
+      return loader.apply(ids);
+    }
+    return Mono.defer(() -> {
+      Map<UUID, Book> books = new HashMap<>();
+      Map<UUID, Book> unverified = new HashMap<>();
+      Set<UUID> missing = new HashSet<>();
+      long now = System.currentTimeMillis();
+      for (UUID id : ids) {
+        OffHeapBookStore.Entry stored = offHeap.getEntry(id);
+        if (stored == null) {
+          missing.add(id);
+        } else if (now - stored.writtenAt() <= verifyAfterMillis) {
+          books.put(id, stored.book());
+        } else {
+          unverified.put(id, stored.book());
+        }
+      }
+      offHeapHits.increment(books.size());
+      offHeapMisses.increment(missing.size());
+      return verify(unverified).flatMap(verified -> {
+        books.putAll(verified);
+        unverified.keySet().stream().filter(id -> !verified.containsKey(id)).forEach(missing::add);
+        if (missing.isEmpty()) {
+          return Mono.just(books);
+        }
+        return loader.apply(missing).map(loaded -> {
+          loaded.values().forEach(offHeap::put);
+          books.putAll(loaded);
+          return books;
+        });
+      });
+    });
+  }
+
+  // The copies Mongo still holds at the same version, their age restarts. The others are dropped and
+  // reloaded by the caller
+  private Mono<Map<UUID, Book>> verify(Map<UUID, Book> copies) {
+    if (copies.isEmpty()) {
+      return Mono.just(Map.of());
+    }
+    return bookDao.findVersionsByIds(copies.keySet())
+        .filter(current -> current.getVersion() != null
+            && current.getVersion().equals(copies.get(current.getId()).getVersion()))
+        .collectMap(Book::getId, current -> copies.get(current.getId()))
+        .doOnNext(verified -> copies.forEach((id, copy) -> {
+          if (verified.containsKey(id)) {
+            offHeapHits.increment();
+            offHeap.verified(id, copy.getVersion());
+          } else {
+            offHeapStale.increment();
+            offHeap.remove(id);
+          }
+        }));
+  }
+}
@@ -0,0 +1,340 @@
+package io.kas.bookservice.cache;
+
+import io.kas.bookservice.config.MongoConfig;
+import io.kas.bookservice.model.Book;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.io.BasicOutputBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Second cache tier: books as BSON in direct memory, which the GC does not scan or copy.
+// Documents are appended to a ring of segments and the oldest segment is overwritten when the ring
+// wraps, an index slot pointing into an overwritten segment is a miss. The index is off-heap as well,
+// an open-addressing table whose slots hold the id as two longs, the version, the log position and
+// the write time. Once maxEntries slots are taken the dead ones are purged, the table is cleared only
+// when most of them are still live
+final class OffHeapBookStore {
+
+  private static final Codec<Book> CODEC = CodecRegistries
+      .withUuidRepresentation(MongoConfig.pojoCodecRegistry(), MongoConfig.UUID_REPRESENTATION)
+      .get(Book.class);
+  private static final EncoderContext ENCODER_CONTEXT = EncoderContext.builder().build();
+  private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+
+  private static final int SLOT_LONGS = 5;
+  private static final int MSB = 0;
+  private static final int LSB = 1;
+  private static final int VERSION = 2;
+  private static final int POSITION = 3;
+  // 0 marks a slot that never held an id
+  private static final int WRITTEN_AT = 4;
+  private static final long REMOVED = -1;
+  private static final int LENGTH_PREFIX = Integer.BYTES;
+
+  private static final ThreadLocal<BasicOutputBuffer> ENCODE_BUFFERS = ThreadLocal.withInitial(BasicOutputBuffer::new);
+  private static final ThreadLocal<byte[]> DECODE_BUFFERS = ThreadLocal.withInitial(() -> new byte[8192]);
+
+  private final ByteBuffer[] segments;
+  private final int segmentSize;
+  private final LongBuffer index;
+  private final int mask;
+  private final int maxEntries;
+  private final long maxAgeMillis;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private long writePosition;
+  private int occupiedSlots;
+
+  OffHeapBookStore(long capacityBytes, int segmentSize, int maxEntries, long maxAgeMillis) {
+    int segmentCount = (int) Math.max(2, capacityBytes / segmentSize);
+    this.segments = new ByteBuffer[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = ByteBuffer.allocateDirect(segmentSize);
+    }
+    this.segmentSize = segmentSize;
+    // At most half the slots are taken, probe sequences stay short
+    int slots = Integer.highestOneBit(Math.max(2, maxEntries) * 2 - 1) << 1;
+    this.index = ByteBuffer.allocateDirect(slots * SLOT_LONGS * Long.BYTES).asLongBuffer();
+    this.mask = slots - 1;
+    this.maxEntries = maxEntries;
+    this.maxAgeMillis = maxAgeMillis;
+  }
+
+  // writtenAt is when the copy was stored or last found current
+  record Entry(Book book, long writtenAt) {}
+
+  Book get(UUID id) {
+    Entry entry = getEntry(id);
+    return entry == null ? null : entry.book();
+  }
+
+  Entry getEntry(UUID id) {
+    long now = System.currentTimeMillis();
+    lock.readLock().lock();
+    try {
+      int slot = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+      if (slot < 0) {
+        return null;
+      }
+      long position = index.get(slot + POSITION);
+      if (!isLive(position) || now - index.get(slot + WRITTEN_AT) > maxAgeMillis) {
+        return null;
+      }
+      ByteBuffer segment = segments[segmentOf(position)];
+      int offset = (int) (position % segmentSize);
+      int length = segment.getInt(offset);
+      // The BSON reader copies every string out of a direct buffer, one bulk copy to the heap is cheaper
+      byte[] document = decodeBuffer(length);
+      segment.get(offset + LENGTH_PREFIX, document, 0, length);
+      return new Entry(decode(document, length), index.get(slot + WRITTEN_AT));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // A stored copy at a newer version is kept, a load that raced with an update cannot replace it
+  void put(Book book) {
+    if (book.getId() == null || book.getVersion() == null) {
+      return;
+    }
+    BasicOutputBuffer buffer = ENCODE_BUFFERS.get();
+    buffer.truncateToPosition(0);
+    CODEC.encode(new BsonBinaryWriter(buffer), book, ENCODER_CONTEXT);
+    put(book.getId(), book.getVersion(), buffer.getInternalBuffer(), buffer.getPosition(), System.currentTimeMillis());
+  }
+
+  // Stores a book already encoded as BSON, as read from a warm-start snapshot. writtenAt is when the
+  // copy was read, a snapshot copy ages from the snapshot's creation rather than from the load
+  void put(UUID id, long version, byte[] document, int length, long writtenAt) {
+    if (length + LENGTH_PREFIX > segmentSize || System.currentTimeMillis() - writtenAt > maxAgeMillis) {
+      return;
+    }
+    long msb = id.getMostSignificantBits();
+    long lsb = id.getLeastSignificantBits();
+
+    lock.writeLock().lock();
+    try {
+      int slot = find(msb, lsb);
+      if (slot >= 0 && isLive(index.get(slot + POSITION)) && index.get(slot + VERSION) > version) {
+        return;
+      }
+      if (slot < 0) {
+        slot = claim(msb, lsb);
+      }
+      if (slot < 0 && purge() > maxEntries - maxEntries / 4) {
+        clear();
+      }
+      if (slot < 0) {
+        slot = claim(msb, lsb);
+      }
+      long position = append(document, length);
+      index.put(slot + MSB, msb);
+      index.put(slot + LSB, lsb);
+      index.put(slot + VERSION, version);
+      index.put(slot + POSITION, position);
+      index.put(slot + WRITTEN_AT, writtenAt);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // Restarts the age of a copy Mongo still holds at this version
+  void verified(UUID id, long version) {
+    long now = System.currentTimeMillis();
+    lock.writeLock().lock();
+    try {
+      int slot = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+      if (slot >= 0 && isLive(index.get(slot + POSITION)) && index.get(slot + VERSION) == version) {
+        index.put(slot + WRITTEN_AT, now);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  void remove(UUID id) {
+    removeOlderThan(id, Long.MAX_VALUE);
+  }
+
+  void removeOlderThan(UUID id, long version) {
+    lock.writeLock().lock();
+    try {
+      int slot = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+      if (slot >= 0 && index.get(slot + VERSION) < version) {
+        index.put(slot + POSITION, REMOVED);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  void removeAll() {
+    lock.writeLock().lock();
+    try {
+      clear();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  static Book decode(byte[] document, int length) {
+    return CODEC.decode(new BsonBinaryReader(ByteBuffer.wrap(document, 0, length)), DECODER_CONTEXT);
+  }
+
+  long usedBytes() {
+    lock.readLock().lock();
+    try {
+      return Math.min(writePosition, (long) segments.length * segmentSize);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  int occupiedSlots() {
+    lock.readLock().lock();
+    try {
+      return occupiedSlots;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private static byte[] decodeBuffer(int length) {
+    byte[] buffer = DECODE_BUFFERS.get();
+    if (buffer.length < length) {
+      buffer = new byte[Integer.highestOneBit(length) << 1];
+      DECODE_BUFFERS.set(buffer);
+    }
+    return buffer;
+  }
+
+  private long append(byte[] document, int length) {
+    int offset = (int) (writePosition % segmentSize);
+    if (offset + LENGTH_PREFIX + length > segmentSize) {
+      writePosition += segmentSize - offset;
+      offset = 0;
+    }
+    long position = writePosition;
+    ByteBuffer segment = segments[segmentOf(position)];
+    segment.putInt(offset, length);
+    segment.put(offset + LENGTH_PREFIX, document, 0, length);
+    writePosition += LENGTH_PREFIX + length;
+    return position;
+  }
+
+  // Positions before the start of the oldest segment still in the ring have been overwritten
+  private boolean isLive(long position) {
+    if (position == REMOVED) {
+      return false;
+    }
+    long currentSegmentStart = writePosition - writePosition % segmentSize;
+    return position >= currentSegmentStart - (long) (segments.length - 1) * segmentSize;
+  }
+
+  private int segmentOf(long position) {
+    return (int) ((position / segmentSize) % segments.length);
+  }
+
+  // Slot offset of the id, -1 when it is not in the table
+  private int find(long msb, long lsb) {
+    for (int i = hash(msb, lsb); ; i = (i + 1) & mask) {
+      int slot = i * SLOT_LONGS;
+      if (index.get(slot + WRITTEN_AT) == 0) {
+        return -1;
+      }
+      if (index.get(slot + MSB) == msb && index.get(slot + LSB) == lsb) {
+        return slot;
+      }
+    }
+  }
+
+  // First reusable slot on the probe sequence of an id that is not in the table: one whose entry was
+  // removed or overwritten, or a never used slot while fewer than maxEntries are taken. -1 when full
+  private int claim(long msb, long lsb) {
+    for (int i = hash(msb, lsb); ; i = (i + 1) & mask) {
+      int slot = i * SLOT_LONGS;
+      if (index.get(slot + WRITTEN_AT) == 0) {
+        if (occupiedSlots >= maxEntries) {
+          return -1;
+        }
+        occupiedSlots++;
+        return slot;
+      }
+      if (!isLive(index.get(slot + POSITION))) {
+        return slot;
+      }
+    }
+  }
+
+  // Empties the slots of removed, overwritten and expired entries and moves the live ones back onto
+  // unbroken probe sequences. With linear probing one round over the table that starts after a slot
+  // that was already empty does it, no probe sequence crosses that slot. A slot emptied here may be
+  // in the middle of one. Returns the live entries
+  private int purge() {
+    long now = System.currentTimeMillis();
+    int slots = mask + 1;
+    int empty = -1;
+    for (int i = 0; i < slots; i++) {
+      int slot = i * SLOT_LONGS;
+      long writtenAt = index.get(slot + WRITTEN_AT);
+      if (writtenAt == 0 && empty < 0) {
+        empty = i;
+      }
+      if (writtenAt != 0 && (!isLive(index.get(slot + POSITION)) || now - writtenAt > maxAgeMillis)) {
+        clearSlot(slot);
+      }
+    }
+    int live = 0;
+    for (int n = 1; n <= slots; n++) {
+      int i = (empty + n) & mask;
+      int slot = i * SLOT_LONGS;
+      if (index.get(slot + WRITTEN_AT) == 0) {
+        continue;
+      }
+      live++;
+      for (int j = hash(index.get(slot + MSB), index.get(slot + LSB)); j != i; j = (j + 1) & mask) {
+        int target = j * SLOT_LONGS;
+        if (index.get(target + WRITTEN_AT) == 0) {
+          for (int k = 0; k < SLOT_LONGS; k++) {
+            index.put(target + k, index.get(slot + k));
+          }
+          clearSlot(slot);
+          break;
+        }
+      }
+    }
+    occupiedSlots = live;
+    return live;
+  }
+
+  private void clearSlot(int slot) {
+    for (int k = 0; k < SLOT_LONGS; k++) {
+      index.put(slot + k, 0);
+    }
+  }
+
+  private void clear() {
+    for (int i = 0; i < index.capacity(); i++) {
+      index.put(i, 0);
+    }
+    occupiedSlots = 0;
+    writePosition = 0;
+  }
+
+  private int hash(long msb, long lsb) {
+    long h = msb ^ lsb;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    return (int) h & mask;
+  }
+}
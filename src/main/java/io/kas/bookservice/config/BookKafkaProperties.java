@@ -0,0 +1,46 @@
+package io.kas.bookservice.config;
+
+import io.kas.bookservice.util.serializer.BookEventBinarySerializer;
+import io.kas.bookservice.util.serializer.BookEventSerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "book-service.kafka")
+public record BookKafkaProperties(
+    String bootstrapServers,
+    EventFormat eventFormat,
+    Producer producer
+) {
+
+  public enum EventFormat {
+    JSON(BookEventSerializer.class),
+    BINARY(BookEventBinarySerializer.class);
+
+    private final Class<? extends Serializer<?>> serializer;
+
+    EventFormat(Class<? extends Serializer<?>> serializer) {
+      this.serializer = serializer;
+    }
+
+    public Class<? extends Serializer<?>> serializer() {
+      return serializer;
+    }
+  }
+
+  // maxInFlight is the number of records reactor-kafka keeps unacknowledged, publishQueueSize the
+  // number of records BookEventPublisher buffers in front of it
+  public record Producer(
+      boolean idempotence,
+      int batchSize,
+      Duration linger,
+      String compressionType,
+      long bufferMemory,
+      int maxInFlight,
+      Duration retryBackoff,
+      Duration requestTimeout,
+      Duration deliveryTimeout,
+      int publishQueueSize
+  ) {}
+}
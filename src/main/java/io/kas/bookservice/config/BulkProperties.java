@@ -0,0 +1,9 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "book-service.bulk")
+public record BulkProperties(
+    int chunkSize,
+    int concurrency
+) {}
@@ -0,0 +1,23 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "book-service.cache")
+public record CacheProperties(
+    long maximumSize,
+    Duration expireAfterWrite,
+    OffHeap offHeap
+) {
+
+  // Second tier behind the on-heap cache, capacity counts against -XX:MaxDirectMemorySize
+  public record OffHeap(
+      boolean enabled,
+      DataSize capacity,
+      DataSize segmentSize,
+      int maxEntries,
+      Duration expireAfterWrite
+  ) {}
+}
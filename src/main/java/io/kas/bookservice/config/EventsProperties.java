@@ -0,0 +1,27 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "book-service.events")
+public record EventsProperties(
+    Source source,
+    ChangeStream changeStream
+) {
+
+  public enum Source {
+    // BookService writes each event to the outbox with the book, OutboxRelay publishes it
+    OUTBOX,
+    // BookService writes only books, ChangeStreamRelay derives the events from the change stream
+    CHANGE_STREAM
+  }
+
+  public record ChangeStream(
+      int batchSize,
+      Duration batchTimeout,
+      // One instance holds the lease and publishes, the others take over once it expires
+      Duration leaseDuration,
+      Duration leaseRenewInterval
+  ) {}
+}
@@ -0,0 +1,8 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "book-service.export")
+public record ExportProperties(
+    int batchSize
+) {}
@@ -0,0 +1,11 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "book-service.http-cache")
+public record HttpCacheProperties(
+    Duration maxAge,
+    Duration staleWhileRevalidate
+) {}
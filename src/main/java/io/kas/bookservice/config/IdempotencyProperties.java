@@ -0,0 +1,13 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "book-service.idempotency")
+public record IdempotencyProperties(
+    Duration ttl,
+    int maxKeyLength,
+    int maxRetries,
+    Duration retryBackoff
+) {}
@@ -0,0 +1,31 @@
+package io.kas.bookservice.config;
+
+import io.kas.bookservice.repository.BookDao;
+import io.kas.bookservice.repository.IdempotencyDao;
+import io.kas.bookservice.repository.OutboxDao;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class IndexInitializer {
+
+  private final BookDao bookDao;
+  private final IdempotencyDao idempotencyDao;
+  private final OutboxDao outboxDao;
+  private final IdempotencyProperties idempotencyProperties;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void createIndexes() {
+    Mono.when(bookDao.createIndexes(), idempotencyDao.createIndexes(idempotencyProperties.ttl()),
+            outboxDao.createIndexes())
+        .doOnSuccess(ignored -> log.info("Book indexes are in place"))
+        .doOnError(ex -> log.error("Failed to create book indexes: {}", ex.getMessage(), ex))
+        .subscribe();
+  }
+}
@@ -1,11 +1,14 @@
 package io.kas.bookservice.config;
 
 import io.kas.bookservice.dto.events.BookEvent;
-import io.kas.bookservice.util.serializer.BookEventSerializer;
+import io.kas.bookservice.util.serializer.BookEventDeserializer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import reactor.kafka.receiver.ReceiverOptions;
 import reactor.kafka.sender.KafkaSender;
 import reactor.kafka.sender.SenderOptions;
 
@@ -15,17 +18,43 @@ import java.util.Map;
 @Configuration
 public class KafkaConfig {
 
+  // Retries are bounded by delivery.timeout.ms rather than a count, idempotence keeps them from
+  // duplicating or reordering records within a partition
   @Bean
-  public KafkaSender<String, BookEvent> kafkaSender() {
+  public KafkaSender<String, BookEvent> kafkaSender(BookKafkaProperties kafkaProperties) {
+    BookKafkaProperties.Producer producer = kafkaProperties.producer();
     Map<String, Object> props = new HashMap<>();
-    props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+    props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProperties.bootstrapServers());
     props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-    props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, BookEventSerializer.class);
-    props.put(ProducerConfig.RETRIES_CONFIG, 3);
-    props.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 1000);
-    props.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 15000);
+    props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, kafkaProperties.eventFormat().serializer());
+    props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, producer.idempotence());
+    props.put(ProducerConfig.ACKS_CONFIG, producer.idempotence() ? "all" : "1");
+    props.put(ProducerConfig.BATCH_SIZE_CONFIG, producer.batchSize());
+    props.put(ProducerConfig.LINGER_MS_CONFIG, (int) producer.linger().toMillis());
+    props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, producer.compressionType());
+    props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, producer.bufferMemory());
+    props.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, (int) producer.retryBackoff().toMillis());
+    props.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, (int) producer.requestTimeout().toMillis());
+    props.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, (int) producer.deliveryTimeout().toMillis());
 
-    SenderOptions<String, BookEvent> senderOptions = SenderOptions.create(props);
+    // One failed record must not terminate the shared send of BookEventPublisher
+    SenderOptions<String, BookEvent> senderOptions = SenderOptions.<String, BookEvent>create(props)
+        .maxInFlight(producer.maxInFlight())
+        .stopOnError(false);
     return KafkaSender.create(senderOptions);
   }
+
+  // Every instance reads the whole topic to keep local state current. BookEventConsumer assigns all
+  // partitions itself, there is no group and nothing is committed, so no group is left behind per restart
+  @Bean
+  public ReceiverOptions<String, BookEvent> bookEventReceiverOptions(BookKafkaProperties kafkaProperties) {
+    Map<String, Object> props = new HashMap<>();
+    props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProperties.bootstrapServers());
+    props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+    props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+    props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+    props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, BookEventDeserializer.class);
+
+    return ReceiverOptions.create(props);
+  }
 }
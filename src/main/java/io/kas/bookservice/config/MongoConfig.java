@@ -5,6 +5,11 @@ import com.mongodb.MongoClientSettings;
 import com.mongodb.reactivestreams.client.MongoClient;
 import com.mongodb.reactivestreams.client.MongoClients;
 import io.kas.bookservice.repository.BookDao;
+import io.kas.bookservice.repository.CatalogStatsDao;
+import io.kas.bookservice.repository.ChangeStreamStateDao;
+import io.kas.bookservice.repository.IdempotencyDao;
+import io.kas.bookservice.repository.OutboxDao;
+import io.kas.bookservice.util.metrics.BookMetrics;
 import org.bson.UuidRepresentation;
 import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.codecs.pojo.PojoCodecProvider;
@@ -17,26 +22,51 @@ import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
 @Configuration
 public class MongoConfig {
 
+  public static final UuidRepresentation UUID_REPRESENTATION = UuidRepresentation.JAVA_LEGACY;
+
   @Bean
   public MongoClient mongoClient() {
     ConnectionString connectionString = new ConnectionString("mongodb://localhost:27017");
 
-    CodecRegistry pojoCodecRegistry = fromRegistries(
-        MongoClientSettings.getDefaultCodecRegistry(),
-        fromProviders(PojoCodecProvider.builder().automatic(true).build())
-    );
-
     MongoClientSettings settings = MongoClientSettings.builder()
         .applyConnectionString(connectionString)
-        .uuidRepresentation(UuidRepresentation.JAVA_LEGACY)
-        .codecRegistry(pojoCodecRegistry)
+        .uuidRepresentation(UUID_REPRESENTATION)
+        .codecRegistry(pojoCodecRegistry())
         .build();
 
     return MongoClients.create(settings);
   }
 
+  // Shared with the benchmarks so they encode documents exactly like the driver does
+  public static CodecRegistry pojoCodecRegistry() {
+    return fromRegistries(
+        MongoClientSettings.getDefaultCodecRegistry(),
+        fromProviders(PojoCodecProvider.builder().automatic(true).build())
+    );
+  }
+
+  @Bean
+  public BookDao bookDao(MongoClient client, BookMetrics metrics) {
+    return new BookDao(client, metrics);
+  }
+
+  @Bean
+  public OutboxDao outboxDao(MongoClient client, BookMetrics metrics) {
+    return new OutboxDao(client, metrics);
+  }
+
+  @Bean
+  public IdempotencyDao idempotencyDao(MongoClient client, BookMetrics metrics) {
+    return new IdempotencyDao(client, metrics);
+  }
+
+  @Bean
+  public ChangeStreamStateDao changeStreamStateDao(MongoClient client, BookMetrics metrics) {
+    return new ChangeStreamStateDao(client, metrics);
+  }
+
   @Bean
-  public BookDao bookDao(MongoClient client) {
-    return new BookDao(client);
+  public CatalogStatsDao catalogStatsDao(MongoClient client, BookMetrics metrics) {
+    return new CatalogStatsDao(client, metrics);
   }
 }
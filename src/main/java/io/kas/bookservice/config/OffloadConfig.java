@@ -0,0 +1,46 @@
+package io.kas.bookservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+@Configuration
+public class OffloadConfig {
+
+  // Runs request validation and mapping off the Netty event loop. With mode none the work stays
+  // on the calling thread
+  @Bean(destroyMethod = "dispose")
+  public Scheduler offloadScheduler(OffloadProperties offloadProperties) {
+    return switch (offloadProperties.mode()) {
+      case NONE -> Schedulers.immediate();
+      case BOUNDED -> bounded(offloadProperties);
+      case VIRTUAL -> {
+        ExecutorService executor = virtualThreadExecutor();
+        if (executor == null) {
+          log.warn("Virtual threads need Java 21, running {} on a bounded pool instead", Runtime.version());
+          yield bounded(offloadProperties);
+        }
+        yield Schedulers.fromExecutorService(executor, "book-offload");
+      }
+    };
+  }
+
+  private static Scheduler bounded(OffloadProperties offloadProperties) {
+    return Schedulers.newBoundedElastic(offloadProperties.threads(), offloadProperties.queueSize(), "book-offload");
+  }
+
+  // The service compiles for Java 17, the factory method is looked up so that a Java 21 runtime can use it
+  private static ExecutorService virtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "book-service.offload")
+public record OffloadProperties(
+    Mode mode,
+    // Sizing of the bounded mode
+    int threads,
+    int queueSize
+) {
+
+  public enum Mode {
+    // Validation and mapping run on the thread that delivered the request body
+    NONE,
+    // A bounded pool of platform threads
+    BOUNDED,
+    // A virtual thread per task, needs Java 21, falls back to BOUNDED on older runtimes
+    VIRTUAL
+  }
+}
@@ -0,0 +1,14 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "book-service.outbox")
+public record OutboxProperties(
+    String topic,
+    int batchSize,
+    Duration pollInterval,
+    Duration sendTimeout,
+    Duration leaseDuration
+) {}
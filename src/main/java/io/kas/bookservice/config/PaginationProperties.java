@@ -0,0 +1,10 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "book-service.pagination")
+public record PaginationProperties(
+    int defaultLimit,
+    int maxLimit,
+    int maxBatchSize
+) {}
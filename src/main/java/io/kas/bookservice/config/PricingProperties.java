@@ -0,0 +1,13 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "book-service.pricing")
+public record PricingProperties(
+    Duration sweepInterval,
+    int sweepBatchSize,
+    boolean backfillOnStartup,
+    Duration backfillLease
+) {}
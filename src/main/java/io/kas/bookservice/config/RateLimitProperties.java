@@ -0,0 +1,39 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Set;
+
+@ConfigurationProperties(prefix = "book-service.rate-limit")
+public record RateLimitProperties(
+    boolean enabled,
+    // Clients are told apart by their remote address. The client id header is unauthenticated, it is only
+    // used when trusted and on requests from a trusted proxy, one that sets it itself
+    String clientIdHeader,
+    boolean trustClientIdHeader,
+    // Behind a load balancer the remote address is the proxy's. Requests from one of the trusted proxy
+    // addresses are keyed on the last address of this header that is not a trusted proxy
+    String forwardedForHeader,
+    Set<String> trustedProxies,
+    long maxClients,
+    Bucket read,
+    Bucket write,
+    Concurrency concurrency
+) {
+
+  public record Bucket(
+      double ratePerSecond,
+      int burst
+  ) {}
+
+  public record Concurrency(
+      int initialLimit,
+      int minLimit,
+      int maxLimit,
+      double writeShare,
+      double tolerance,
+      Set<String> excludedOperations,
+      Duration retryAfter
+  ) {}
+}
@@ -0,0 +1,11 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "book-service.search-index")
+public record SearchIndexProperties(
+    boolean enabled,
+    int bootstrapBatchSize,
+    int defaultLimit,
+    int maxLimit
+) {}
@@ -0,0 +1,13 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "book-service.search")
+public record SearchProperties(
+    int defaultLimit,
+    int maxLimit,
+    int maxOffset,
+    Duration maxTime
+) {}
@@ -0,0 +1,10 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "book-service.stats")
+public record StatsProperties(
+    Duration reconcileInterval
+) {}
@@ -0,0 +1,11 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "book-service.update")
+public record UpdateProperties(
+    int maxRetries,
+    Duration retryBackoff
+) {}
@@ -0,0 +1,20 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "book-service.warm-start")
+public record WarmStartProperties(
+    boolean enabled,
+    String snapshotPath,
+    boolean writeSnapshots,
+    Duration snapshotInterval,
+    int snapshotBatchSize,
+    // An older snapshot is ignored, catching up from its offsets would cost more than a cold start
+    Duration maxSnapshotAge,
+    // A warning is logged when book-topic has not been caught up after this, readiness stays down
+    Duration catchUpTimeout,
+    // Only the holder of the snapshot lease writes snapshots, it is renewed on every run
+    Duration snapshotLease
+) {}
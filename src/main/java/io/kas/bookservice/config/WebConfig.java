@@ -0,0 +1,21 @@
+package io.kas.bookservice.config;
+
+import io.kas.bookservice.model.Category;
+import io.kas.bookservice.model.Language;
+import io.kas.bookservice.model.Status;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+@Configuration
+public class WebConfig implements WebFluxConfigurer {
+
+  // Query parameters accept the same case-insensitive enum values as the JSON body
+  @Override
+  public void addFormatters(FormatterRegistry registry) {
+    registry.addConverter(String.class, Category.class, (Converter<String, Category>) Category::fromString);
+    registry.addConverter(String.class, Language.class, (Converter<String, Language>) Language::fromString);
+    registry.addConverter(String.class, Status.class, (Converter<String, Status>) Status::fromString);
+  }
+}
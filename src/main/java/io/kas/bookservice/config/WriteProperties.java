@@ -0,0 +1,17 @@
+package io.kas.bookservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "book-service.write")
+public record WriteProperties(
+    WriteMode mode
+) {
+
+  public enum WriteMode {
+    // Book and outbox writes commit together in a multi-document transaction
+    TRANSACTIONAL,
+    // The book write relies on single-document atomicity and the version check. Applies only with
+    // the change stream as the event source, writes that insert an outbox event stay transactional
+    SINGLE_DOCUMENT
+  }
+}
@@ -1,13 +1,31 @@
 package io.kas.bookservice.controller;
 
+import io.kas.bookservice.config.HttpCacheProperties;
+import io.kas.bookservice.dto.BatchLookupItem;
+import io.kas.bookservice.dto.BatchLookupRequest;
 import io.kas.bookservice.dto.BookDto;
+import io.kas.bookservice.dto.BookFilter;
+import io.kas.bookservice.dto.BookPage;
+import io.kas.bookservice.dto.BookSearchPage;
+import io.kas.bookservice.dto.BookSuggestion;
+import io.kas.bookservice.dto.BulkItemResult;
+import io.kas.bookservice.dto.CatalogStats;
+import io.kas.bookservice.dto.ProjectedBook;
 import io.kas.bookservice.service.BookService;
 import jakarta.validation.Valid;
+import io.kas.bookservice.util.http.ETags;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @RequiredArgsConstructor
@@ -16,29 +34,92 @@ import java.util.UUID;
 public class BookController {
 
   private final BookService bookService;
+  private final HttpCacheProperties httpCacheProperties;
 
   @GetMapping
-  public Flux<BookDto> getBooks() {
-    return bookService.getBooks();
+  public Mono<BookPage> getBooks(BookFilter filter,
+                                 @RequestParam(required = false) String cursor,
+                                 @RequestParam(required = false) Integer limit,
+                                 @RequestParam(required = false) String sort) {
+    return bookService.getBooks(filter, cursor, limit, sort);
   }
 
+  @GetMapping("search")
+  public Mono<BookSearchPage> searchBooks(@RequestParam String q,
+                                          BookFilter filter,
+                                          @RequestParam(required = false) Integer offset,
+                                          @RequestParam(required = false) Integer limit) {
+    return bookService.searchBooks(q, filter, offset, limit);
+  }
+
+  @GetMapping("autocomplete")
+  public Mono<List<BookSuggestion>> autocomplete(@RequestParam String q,
+                                                 @RequestParam(required = false) Integer limit) {
+    return bookService.autocomplete(q, limit);
+  }
+
+  @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<ProjectedBook> exportBooks(@RequestParam(required = false) List<String> fields) {
+    return bookService.exportBooks(fields);
+  }
+
+  @GetMapping("stats")
+  public Mono<CatalogStats> getCatalogStats() {
+    return bookService.getCatalogStats();
+  }
+
+  // A matching If-None-Match is answered with 304 after a version-only lookup
   @GetMapping("{id}")
-  public Mono<BookDto> getBookById(@PathVariable UUID id) {
-    return bookService.getBook(id);
+  public Mono<ResponseEntity<BookDto>> getBookById(@PathVariable UUID id,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                   String ifNoneMatch) {
+    if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+      return bookService.getBook(id).map(book -> cacheable(ResponseEntity.ok(), id, book.version()).body(book));
+    }
+    return bookService.getBookVersion(id)
+        .flatMap(version -> ETags.matches(ifNoneMatch, id, version)
+            ? Mono.just(cacheable(ResponseEntity.status(HttpStatus.NOT_MODIFIED), id, version).<BookDto>build())
+            : bookService.getBook(id).map(book -> cacheable(ResponseEntity.ok(), id, book.version()).body(book)));
+  }
+
+  @PostMapping("_batch")
+  public Mono<List<BatchLookupItem>> getBooksByIds(@Valid @RequestBody Mono<BatchLookupRequest> requestMono) {
+    return requestMono.flatMap(bookService::getBooks);
   }
 
+  // The body is validated by the service, on the offload scheduler
   @PostMapping
-  public Mono<BookDto> createBook(@Valid @RequestBody Mono<BookDto> bookDtoMono) {
-    return bookService.saveBook(bookDtoMono);
+  public Mono<BookDto> createBook(@RequestBody Mono<BookDto> bookDtoMono,
+                                  @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+    return bookService.saveBook(bookDtoMono, idempotencyKey);
+  }
+
+  @PostMapping(value = "_bulk",
+      consumes = MediaType.APPLICATION_NDJSON_VALUE,
+      produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<BulkItemResult> bulkCreateBooks(@RequestBody Flux<String> lines) {
+    return bookService.bulkSaveBooks(lines);
   }
 
   @PutMapping("{id}")
-  public Mono<BookDto> updateBook(@Valid @RequestBody Mono<BookDto> bookDtoMono, @PathVariable UUID id) {
-    return bookService.updateBook(bookDtoMono, id);
+  public Mono<ResponseEntity<BookDto>> updateBook(@RequestBody Mono<BookDto> bookDtoMono, @PathVariable UUID id,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                  String ifMatch) {
+    return Mono.fromCallable(() -> Optional.ofNullable(ETags.parseVersion(ifMatch, id)))
+        .flatMap(version -> bookService.updateBook(bookDtoMono, id, version.orElse(null)))
+        .map(book -> ResponseEntity.ok().eTag(ETags.of(id, book.version())).body(book));
   }
 
   @DeleteMapping("{id}")
   public Mono<Void> deleteBook(@PathVariable UUID id) {
     return bookService.deleteBook(id);
   }
+
+  private ResponseEntity.BodyBuilder cacheable(ResponseEntity.BodyBuilder builder, UUID id, long version) {
+    return builder
+        .eTag(ETags.of(id, version))
+        .cacheControl(CacheControl.maxAge(httpCacheProperties.maxAge())
+            .cachePublic()
+            .staleWhileRevalidate(httpCacheProperties.staleWhileRevalidate()));
+  }
 }
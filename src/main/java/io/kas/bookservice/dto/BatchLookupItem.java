@@ -0,0 +1,15 @@
+package io.kas.bookservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchLookupItem(
+    UUID id,
+    boolean found,
+    // True when the request's ifNoneMatch tag is current, the book is then left out
+    Boolean notModified,
+    String etag,
+    ProjectedBook book
+) {}
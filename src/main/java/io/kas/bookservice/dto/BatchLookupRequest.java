@@ -0,0 +1,16 @@
+package io.kas.bookservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BatchLookupRequest(
+    @NotEmpty(message = "At least one id is required")
+    List<UUID> ids,
+
+    List<String> fields,
+
+    // ETags from earlier responses, books still at that version come back as notModified
+    List<String> ifNoneMatch
+) {}
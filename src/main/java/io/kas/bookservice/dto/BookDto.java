@@ -3,6 +3,7 @@ package io.kas.bookservice.dto;
 import io.kas.bookservice.model.Category;
 import io.kas.bookservice.model.Language;
 import io.kas.bookservice.model.Status;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import org.hibernate.validator.constraints.URL;
 
@@ -46,5 +47,13 @@ public record BookDto(
     @Min(0) @Max(100)
     Integer discount,
 
-    Status status
+    List<@Valid PromoDto> promos,
+
+    // Read-only, computed from price, discount and the active promos
+    BigDecimal effectivePrice,
+
+    Status status,
+
+    // Version the client last saw, used as the optimistic lock on update
+    Long version
 ) {}
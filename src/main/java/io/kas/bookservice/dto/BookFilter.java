@@ -0,0 +1,17 @@
+package io.kas.bookservice.dto;
+
+import io.kas.bookservice.model.Category;
+import io.kas.bookservice.model.Language;
+import io.kas.bookservice.model.Status;
+
+import java.math.BigDecimal;
+
+public record BookFilter(
+    Category category,
+    Language language,
+    Status status,
+    Integer publishedYearFrom,
+    Integer publishedYearTo,
+    BigDecimal priceFrom,
+    BigDecimal priceTo
+) {}
@@ -0,0 +1,8 @@
+package io.kas.bookservice.dto;
+
+import java.util.List;
+
+public record BookPage(
+    List<BookDto> items,
+    String nextCursor
+) {}
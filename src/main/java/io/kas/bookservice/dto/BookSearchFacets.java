@@ -0,0 +1,13 @@
+package io.kas.bookservice.dto;
+
+import io.kas.bookservice.model.Category;
+import io.kas.bookservice.model.Language;
+import io.kas.bookservice.model.Status;
+
+import java.util.List;
+
+public record BookSearchFacets(
+    List<FacetCount<Category>> categories,
+    List<FacetCount<Language>> languages,
+    List<FacetCount<Status>> statuses
+) {}
@@ -0,0 +1,6 @@
+package io.kas.bookservice.dto;
+
+public record BookSearchHit(
+    BookDto book,
+    double score
+) {}
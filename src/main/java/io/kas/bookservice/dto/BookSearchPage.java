@@ -0,0 +1,11 @@
+package io.kas.bookservice.dto;
+
+import java.util.List;
+
+public record BookSearchPage(
+    List<BookSearchHit> items,
+    long total,
+    int offset,
+    int limit,
+    BookSearchFacets facets
+) {}
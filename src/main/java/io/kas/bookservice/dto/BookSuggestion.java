@@ -0,0 +1,8 @@
+package io.kas.bookservice.dto;
+
+import java.util.UUID;
+
+public record BookSuggestion(
+    UUID id,
+    String title
+) {}
@@ -0,0 +1,21 @@
+package io.kas.bookservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkItemResult(
+    long index,
+    UUID id,
+    Outcome outcome,
+    String error
+) {
+
+  public enum Outcome {
+    CREATED,
+    UPDATED,
+    INVALID,
+    FAILED
+  }
+}
@@ -0,0 +1,18 @@
+package io.kas.bookservice.dto;
+
+import io.kas.bookservice.model.Category;
+import io.kas.bookservice.model.Language;
+import io.kas.bookservice.model.Status;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+public record CatalogStats(
+    long total,
+    BigDecimal averageEffectivePrice,
+    List<StatsBucket<Category>> categories,
+    List<StatsBucket<Language>> languages,
+    List<StatsBucket<Status>> statuses,
+    Instant reconciledAt
+) {}
@@ -0,0 +1,6 @@
+package io.kas.bookservice.dto;
+
+public record FacetCount<T>(
+    T value,
+    long count
+) {}
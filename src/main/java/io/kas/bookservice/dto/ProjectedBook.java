@@ -0,0 +1,47 @@
+package io.kas.bookservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// A book from an endpoint that takes a fields projection. A projected book leaves out the fields that
+// were not requested instead of writing them as null, a full one is written like any BookDto
+@JsonSerialize(using = ProjectedBook.Serializer.class)
+public record ProjectedBook(
+    BookDto book,
+    boolean projected
+) {
+
+  public static final class Serializer extends StdSerializer<ProjectedBook> {
+
+    // A NON_NULL copy of each mapper this runs in, in practice only Spring's
+    private final Map<ObjectCodec, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public Serializer() {
+      super(ProjectedBook.class);
+    }
+
+    @Override
+    public void serialize(ProjectedBook value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+      if (!value.projected() || !(gen.getCodec() instanceof ObjectMapper mapper)) {
+        provider.defaultSerializeValue(value.book(), gen);
+        return;
+      }
+      writers.computeIfAbsent(mapper, codec -> mapper.copy()
+              .setDefaultPropertyInclusion(JsonInclude.Include.NON_NULL)
+              .writerFor(BookDto.class)
+              .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE))
+          .writeValue(gen, value.book());
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package io.kas.bookservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PromoDto(
+    UUID id,
+
+    @NotNull(message = "Promo value is required")
+    @Min(1) @Max(100)
+    Integer value,
+
+    Instant validFrom,
+
+    Instant validUntil
+) {
+
+  @JsonIgnore
+  @AssertTrue(message = "Promo validFrom must be before validUntil")
+  public boolean isValidWindow() {
+    return validFrom == null || validUntil == null || validFrom.isBefore(validUntil);
+  }
+}
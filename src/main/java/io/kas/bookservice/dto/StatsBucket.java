@@ -0,0 +1,10 @@
+package io.kas.bookservice.dto;
+
+import java.math.BigDecimal;
+
+// averageEffectivePrice is over the books with a price, null when none has one
+public record StatsBucket<T>(
+    T value,
+    long count,
+    BigDecimal averageEffectivePrice
+) {}
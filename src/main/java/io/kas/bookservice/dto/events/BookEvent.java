@@ -1,5 +1,6 @@
 package io.kas.bookservice.dto.events;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -24,8 +25,13 @@ public class BookEvent {
   @Setter
   @AllArgsConstructor
   @NoArgsConstructor
+  @JsonInclude(JsonInclude.Include.NON_NULL)
   public static class Payload {
     private UUID bookId;
+    // Version of the book after the change
+    private Long version;
+    // Set on delta BOOK_UPDATED events: only these fields carry values, a listed field without one was cleared
+    private List<String> changedFields;
     private String title;
     private List<String> authors;
     private String description;
@@ -37,6 +43,8 @@ public class BookEvent {
     private Integer pageCount;
     private BigDecimal price;
     private Integer discount;
+    // Price after the discount and the active promos
+    private BigDecimal effectivePrice;
     private String status;
     private Instant timestamp;
   }
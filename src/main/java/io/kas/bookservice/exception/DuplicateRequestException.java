@@ -0,0 +1,7 @@
+package io.kas.bookservice.exception;
+
+public class DuplicateRequestException extends RuntimeException {
+  public DuplicateRequestException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -1,5 +1,9 @@
 package io.kas.bookservice.exception;
 
+import com.mongodb.MongoExecutionTimeoutException;
+import io.kas.bookservice.model.Category;
+import io.kas.bookservice.model.Language;
+import io.kas.bookservice.model.Status;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +21,14 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+  // The enums a request can carry, a bad value is reported with the allowed ones. Looked up by name
+  // instead of Class.forName, which takes the class loader lock on the event loop
+  private static final Map<String, Class<? extends Enum<?>>> REQUEST_ENUMS = Map.of(
+      Category.class.getName(), Category.class,
+      Language.class.getName(), Language.class,
+      Status.class.getName(), Status.class
+  );
+
   @ExceptionHandler(WebExchangeBindException.class)
   public ResponseEntity<Map<String, String>> handleException(WebExchangeBindException e) {
     final Map<String, String> errors = new HashMap<>();
@@ -25,29 +37,28 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
   }
 
+  @ExceptionHandler(InvalidBookException.class)
+  public ResponseEntity<Map<String, String>> handleInvalidBookException(InvalidBookException ex) {
+    log.error("InvalidBookException occurred: {}", ex.getErrors());
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getErrors());
+  }
+
   @ExceptionHandler(ServerWebInputException.class)
   public ResponseEntity<Map<String, String>> handleEnumErrors(ServerWebInputException ex) {
     Map<String, String> errors = new HashMap<>();
 
     Throwable cause = ex.getMostSpecificCause();
     log.error("Enum status is missing or incorrect: {}", cause.getMessage());
-    if (cause.getMessage().contains("No enum constant")) {
-      try {
-        String message = cause.getMessage();
-        String enumClassName = message.substring(
-            "No enum constant ".length(),
-            message.lastIndexOf('.')
-        );
-
-        Class<?> enumClass = Class.forName(enumClassName);
-        if (enumClass.isEnum()) {
-          Object[] constants = enumClass.getEnumConstants();
-          errors.put("error", "Invalid value for " + enumClass.getSimpleName()
-              + ". Allowed values: " + Arrays.toString(constants));
-          return ResponseEntity.badRequest().body(errors);
-        }
-      } catch (Exception exception) {
-        log.error("Enum class not found while parsing error: {}", exception.getMessage());
+    String message = cause.getMessage();
+    if (message != null && message.startsWith("No enum constant ") && message.lastIndexOf('.') > 0) {
+      Class<? extends Enum<?>> enumClass = REQUEST_ENUMS.get(message.substring(
+          "No enum constant ".length(),
+          message.lastIndexOf('.')
+      ));
+      if (enumClass != null) {
+        errors.put("error", "Invalid value for " + enumClass.getSimpleName()
+            + ". Allowed values: " + Arrays.toString(enumClass.getEnumConstants()));
+        return ResponseEntity.badRequest().body(errors);
       }
     }
 
@@ -61,6 +72,38 @@ public class GlobalExceptionHandler {
     return Mono.just(new ResponseEntity<>("Book not found: " + ex.getMessage(), HttpStatus.NOT_FOUND));
   }
 
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  public Mono<ResponseEntity<String>> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+    log.error("OptimisticLockingFailureException occurred: {}", ex.getMessage());
+    return Mono.just(new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT));
+  }
+
+  @ExceptionHandler(DuplicateRequestException.class)
+  public ResponseEntity<Map<String, String>> handleDuplicateRequestException(DuplicateRequestException ex) {
+    log.error("DuplicateRequestException occurred: {}", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.CONFLICT)
+        .body(Map.of("error", "A request with this Idempotency-Key is still in progress, retry later"));
+  }
+
+  @ExceptionHandler(InvalidRequestException.class)
+  public ResponseEntity<Map<String, String>> handleInvalidRequestException(InvalidRequestException ex) {
+    log.error("InvalidRequestException occurred: {}", ex.getMessage());
+    return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+  }
+
+  @ExceptionHandler(MongoExecutionTimeoutException.class)
+  public ResponseEntity<Map<String, String>> handleMongoExecutionTimeoutException(MongoExecutionTimeoutException ex) {
+    log.error("MongoExecutionTimeoutException occurred: {}", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .body(Map.of("error", "Query exceeded its time limit, narrow it down and retry"));
+  }
+
+  @ExceptionHandler(SearchIndexUnavailableException.class)
+  public ResponseEntity<Map<String, String>> handleSearchIndexUnavailableException(SearchIndexUnavailableException ex) {
+    log.error("SearchIndexUnavailableException occurred: {}", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", ex.getMessage()));
+  }
+
   @ExceptionHandler(Exception.class)
   public Mono<ResponseEntity<String>> handleException(Exception ex) {
     log.error("Exception occurred: {}", ex.getMessage(), ex);
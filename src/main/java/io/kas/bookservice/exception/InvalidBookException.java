@@ -0,0 +1,17 @@
+package io.kas.bookservice.exception;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+// Constraint violations of a book body, by property path
+@Getter
+public class InvalidBookException extends RuntimeException {
+
+  private final Map<String, String> errors;
+
+  public InvalidBookException(Map<String, String> errors) {
+    super("Invalid book: " + errors);
+    this.errors = errors;
+  }
+}
@@ -0,0 +1,7 @@
+package io.kas.bookservice.exception;
+
+public class SearchIndexUnavailableException extends RuntimeException {
+  public SearchIndexUnavailableException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,320 @@
+package io.kas.bookservice.index;
+
+import io.kas.bookservice.config.SearchIndexProperties;
+import io.kas.bookservice.dto.BookSuggestion;
+import io.kas.bookservice.dto.events.BookEvent;
+import io.kas.bookservice.repository.BookDao;
+import io.kas.bookservice.service.BookEventListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Optional per-instance inverted index over title and author tokens, answers autocomplete without
+// touching Mongo. Bootstrapped by a streaming scan and kept current from book-topic; versions make
+// the scan and the events commute
+@Slf4j
+@Component
+public class BookSearchIndex implements BookEventListener {
+
+  private final BookDao bookDao;
+  private final SearchIndexProperties properties;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // Sorted term dictionary: the completions of a prefix are the key range [prefix, prefix + MAX_VALUE),
+  // the lookups of a prefix trie without a node per character
+  private final TreeMap<String, PostingList> terms = new TreeMap<>();
+  // Postings hold dense int ids, books get one on first sight and it is reused after a delete
+  private final Map<UUID, Integer> docIds = new HashMap<>();
+  private Doc[] docs = new Doc[1024];
+  private int docLimit;
+  private int[] freeDocIds = new int[16];
+  private int freeCount;
+  private long postingCount;
+
+  // Deletes seen while the scan runs, so the scan does not bring those books back
+  private final Set<UUID> deletedDuringBootstrap = ConcurrentHashMap.newKeySet();
+  private volatile boolean ready;
+
+  public BookSearchIndex(BookDao bookDao, SearchIndexProperties properties, MeterRegistry meterRegistry) {
+    this.bookDao = bookDao;
+    this.properties = properties;
+    Gauge.builder("book.search.index.documents", this, BookSearchIndex::documentCount).register(meterRegistry);
+    Gauge.builder("book.search.index.terms", this, BookSearchIndex::termCount).register(meterRegistry);
+    Gauge.builder("book.search.index.postings", this, BookSearchIndex::postingCount).register(meterRegistry);
+  }
+
+  public boolean isEnabled() {
+    return properties.enabled();
+  }
+
+  public boolean isReady() {
+    return ready;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void bootstrap() {
+    if (!properties.enabled()) {
+      return;
+    }
+    long start = System.nanoTime();
+    bookDao.findAll(List.of("title", "authors", "version"), properties.bootstrapBatchSize())
+        .filter(book -> !deletedDuringBootstrap.contains(book.getId()))
+        .doOnNext(book -> index(book.getId(), book.getTitle(), book.getAuthors(), book.getVersion()))
+        .count()
+        .doOnError(e -> log.error("Search index bootstrap failed, retrying: {}", e.getMessage()))
+        .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+        .subscribe(count -> {
+          ready = true;
+          deletedDuringBootstrap.clear();
+          log.info("Search index bootstrapped: {} books, {} terms, {} postings in {} ms",
+              count, termCount(), postingCount(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+        });
+  }
+
+  @Override
+  public void onEvent(BookEvent event) {
+    BookEvent.Payload payload = event.getPayload();
+    if (!properties.enabled() || payload == null || payload.getBookId() == null) {
+      return;
+    }
+    UUID id = payload.getBookId();
+    if ("BOOK_DELETED".equals(event.getEventType())) {
+      if (!ready) {
+        deletedDuringBootstrap.add(id);
+      }
+      remove(id);
+      return;
+    }
+
+    // Delta updates only carry the changed fields, the rest comes from the indexed copy
+    List<String> changedFields = payload.getChangedFields();
+    boolean titleChanged = changedFields == null || changedFields.contains("title");
+    boolean authorsChanged = changedFields == null || changedFields.contains("authors");
+    if (!titleChanged && !authorsChanged) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      Integer docId = docIds.get(id);
+      Doc existing = docId != null ? docs[docId] : null;
+      // A delta for a book not indexed yet lacks the other field, and at its newer version would keep
+      // the bootstrap scan's full copy out. The scan indexes the book instead
+      if (existing == null && changedFields != null) {
+        return;
+      }
+      index(id,
+          titleChanged ? payload.getTitle() : existing.title(),
+          authorsChanged ? payload.getAuthors() : existing.authors(),
+          payload.getVersion());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // Books matching every token of the query, the last token as a prefix. Books whose token equals
+  // the prefix come before longer completions
+  public List<BookSuggestion> autocomplete(String query, int limit) {
+    List<String> tokens = tokenize(query);
+    if (tokens.isEmpty()) {
+      return List.of();
+    }
+    String prefix = tokens.get(tokens.size() - 1);
+
+    lock.readLock().lock();
+    try {
+      // Completions are checked against the full tokens, rarest first, instead of materializing their
+      // intersection: common words like "the" would make that cost grow with the catalog
+      PostingList[] required = new PostingList[tokens.size() - 1];
+      for (int i = 0; i < required.length; i++) {
+        required[i] = terms.get(tokens.get(i));
+        if (required[i] == null) {
+          return List.of();
+        }
+      }
+      Arrays.sort(required, Comparator.comparingInt(PostingList::size));
+
+      int[] found = new int[limit];
+      int count = collect(terms.get(prefix), required, found, 0);
+      for (PostingList completion : terms.subMap(prefix, false, prefix + Character.MAX_VALUE, false).values()) {
+        if (count == limit) {
+          break;
+        }
+        count = collect(completion, required, found, count);
+      }
+
+      List<BookSuggestion> suggestions = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        Doc doc = docs[found[i]];
+        suggestions.add(new BookSuggestion(doc.id(), doc.title()));
+      }
+      return suggestions;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int documentCount() {
+    lock.readLock().lock();
+    try {
+      return docIds.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int termCount() {
+    lock.readLock().lock();
+    try {
+      return terms.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public long postingCount() {
+    lock.readLock().lock();
+    try {
+      return postingCount;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void index(UUID id, String title, List<String> authors, Long version) {
+    lock.writeLock().lock();
+    try {
+      Integer docId = docIds.get(id);
+      if (docId != null) {
+        Doc existing = docs[docId];
+        if (version != null && existing.version() != null && existing.version() >= version) {
+          return;
+        }
+        unindex(docId, existing);
+      } else {
+        docId = allocateDocId();
+        docIds.put(id, docId);
+      }
+      Doc doc = new Doc(id, title, authors == null ? List.of() : authors, version);
+      docs[docId] = doc;
+      for (String term : terms(doc)) {
+        terms.computeIfAbsent(term, key -> new PostingList()).add(docId);
+        postingCount++;
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void remove(UUID id) {
+    lock.writeLock().lock();
+    try {
+      Integer docId = docIds.remove(id);
+      if (docId == null) {
+        return;
+      }
+      unindex(docId, docs[docId]);
+      docs[docId] = null;
+      if (freeCount == freeDocIds.length) {
+        freeDocIds = Arrays.copyOf(freeDocIds, freeCount * 2);
+      }
+      freeDocIds[freeCount++] = docId;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void unindex(int docId, Doc doc) {
+    for (String term : terms(doc)) {
+      PostingList postings = terms.get(term);
+      if (postings != null) {
+        postings.remove(docId);
+        postingCount--;
+        if (postings.isEmpty()) {
+          terms.remove(term);
+        }
+      }
+    }
+  }
+
+  private int allocateDocId() {
+    if (freeCount > 0) {
+      return freeDocIds[--freeCount];
+    }
+    if (docLimit == docs.length) {
+      docs = Arrays.copyOf(docs, docs.length * 2);
+    }
+    return docLimit++;
+  }
+
+  private static int collect(PostingList postings, PostingList[] required, int[] found, int count) {
+    if (postings == null) {
+      return count;
+    }
+    for (int i = 0; i < postings.size() && count < found.length; i++) {
+      int docId = postings.get(i);
+      boolean matches = true;
+      for (int j = 0; j < required.length && matches; j++) {
+        matches = required[j].contains(docId);
+      }
+      if (!matches) {
+        continue;
+      }
+      boolean seen = false;
+      for (int j = 0; j < count && !seen; j++) {
+        seen = found[j] == docId;
+      }
+      if (!seen) {
+        found[count++] = docId;
+      }
+    }
+    return count;
+  }
+
+  private static Set<String> terms(Doc doc) {
+    Set<String> terms = new HashSet<>(tokenize(doc.title()));
+    for (String author : doc.authors()) {
+      terms.addAll(tokenize(author));
+    }
+    return terms;
+  }
+
+  // Lower-cased runs of letters and digits, works the same for Latin and Cyrillic text
+  static List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<>();
+    if (text == null) {
+      return tokens;
+    }
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (wordChar && start < 0) {
+        start = i;
+      } else if (!wordChar && start >= 0) {
+        tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+        start = -1;
+      }
+    }
+    return tokens;
+  }
+
+  private record Doc(UUID id, String title, List<String> authors, Long version) {}
+}
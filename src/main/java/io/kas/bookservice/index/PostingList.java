@@ -0,0 +1,63 @@
+package io.kas.bookservice.index;
+
+import java.util.Arrays;
+
+// Sorted set of document ids backed by an int array, 4 bytes per posting instead of a boxed Integer
+// plus a collection node. Not thread-safe, BookSearchIndex guards it with its lock
+final class PostingList {
+
+  private int[] ids = new int[2];
+  private int size;
+
+  void add(int id) {
+    // The bootstrap scan assigns ids in increasing order, so the common case is an append
+    if (size == 0 || ids[size - 1] < id) {
+      ensureCapacity();
+      ids[size++] = id;
+      return;
+    }
+    int position = Arrays.binarySearch(ids, 0, size, id);
+    if (position >= 0) {
+      return;
+    }
+    position = -position - 1;
+    ensureCapacity();
+    System.arraycopy(ids, position, ids, position + 1, size - position);
+    ids[position] = id;
+    size++;
+  }
+
+  void remove(int id) {
+    int position = Arrays.binarySearch(ids, 0, size, id);
+    if (position < 0) {
+      return;
+    }
+    System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+    size--;
+    if (ids.length > 8 && size < ids.length / 4) {
+      ids = Arrays.copyOf(ids, ids.length / 2);
+    }
+  }
+
+  boolean contains(int id) {
+    return Arrays.binarySearch(ids, 0, size, id) >= 0;
+  }
+
+  int get(int index) {
+    return ids[index];
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  private void ensureCapacity() {
+    if (size == ids.length) {
+      ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1) + 1);
+    }
+  }
+}
@@ -5,6 +5,7 @@ import org.bson.codecs.pojo.annotations.BsonId;
 import org.bson.codecs.pojo.annotations.BsonIgnore;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -12,7 +13,7 @@ import java.util.UUID;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class Book {
   @BsonId
   private UUID id;
@@ -43,5 +44,11 @@ public class Book {
 
   private Status status;
 
+  // Derived from price, discount and the active promos on every write, indexed for price sorts and
+  // ranges. nextPriceChangeAt is the next promo window boundary, when the sweep re-prices the book
+  private BigDecimal effectivePrice;
+
+  private Instant nextPriceChangeAt;
+
   private Long version;
 }
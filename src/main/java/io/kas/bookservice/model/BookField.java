@@ -0,0 +1,89 @@
+package io.kas.bookservice.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Fields of Book written by updates, the unit of change for partial updates and delta events. The
+// last two are derived from price, discount and promos and never come from the client
+public enum BookField {
+  TITLE("title", Book::getTitle, (book, value) -> book.setTitle((String) value)),
+  AUTHORS("authors", Book::getAuthors, (book, value) -> book.setAuthors(castList(value))),
+  DESCRIPTION("description", Book::getDescription, (book, value) -> book.setDescription((String) value)),
+  COVER_IMAGE("coverImage", Book::getCoverImage, (book, value) -> book.setCoverImage((String) value)),
+  CATEGORY("category", Book::getCategory, (book, value) -> book.setCategory((Category) value)),
+  PUBLISHER("publisher", Book::getPublisher, (book, value) -> book.setPublisher((String) value)),
+  PUBLISHED_YEAR("publishedYear", Book::getPublishedYear, (book, value) -> book.setPublishedYear((Integer) value)),
+  LANGUAGE("language", Book::getLanguage, (book, value) -> book.setLanguage((Language) value)),
+  PAGE_COUNT("pageCount", Book::getPageCount, (book, value) -> book.setPageCount((Integer) value)),
+  PRICE("price", Book::getPrice, (book, value) -> book.setPrice((BigDecimal) value)),
+  DISCOUNT("discount", Book::getDiscount, (book, value) -> book.setDiscount((Integer) value)),
+  STATUS("status", Book::getStatus, (book, value) -> book.setStatus((Status) value)),
+  PROMOS("promos", Book::getPromos, (book, value) -> book.setPromos(castList(value))),
+  EFFECTIVE_PRICE("effectivePrice", Book::getEffectivePrice, (book, value) -> book.setEffectivePrice((BigDecimal) value)),
+  NEXT_PRICE_CHANGE_AT("nextPriceChangeAt", Book::getNextPriceChangeAt,
+      (book, value) -> book.setNextPriceChangeAt((Instant) value));
+
+  private static final Map<String, BookField> BY_FIELD_NAME = Arrays.stream(values())
+      .collect(Collectors.toUnmodifiableMap(BookField::fieldName, Function.identity()));
+
+  private final String fieldName;
+  private final Function<Book, Object> getter;
+  private final BiConsumer<Book, Object> setter;
+
+  BookField(String fieldName, Function<Book, Object> getter, BiConsumer<Book, Object> setter) {
+    this.fieldName = fieldName;
+    this.getter = getter;
+    this.setter = setter;
+  }
+
+  public String fieldName() {
+    return fieldName;
+  }
+
+  public Object get(Book book) {
+    return getter.apply(book);
+  }
+
+  public void copy(Book from, Book to) {
+    setter.accept(to, getter.apply(from));
+  }
+
+  // Prices are compared by value so 10.0 and 10.00 are not a change
+  public boolean differs(Book stored, Book incoming) {
+    Object storedValue = get(stored);
+    Object incomingValue = get(incoming);
+    if (storedValue instanceof BigDecimal storedDecimal && incomingValue instanceof BigDecimal incomingDecimal) {
+      return storedDecimal.compareTo(incomingDecimal) != 0;
+    }
+    return !Objects.equals(storedValue, incomingValue);
+  }
+
+  // Null for document fields that are not written by updates, like version
+  public static BookField byFieldName(String fieldName) {
+    return BY_FIELD_NAME.get(fieldName);
+  }
+
+  public static Set<BookField> diff(Book stored, Book incoming) {
+    Set<BookField> changed = EnumSet.noneOf(BookField.class);
+    for (BookField field : values()) {
+      if (field.differs(stored, incoming)) {
+        changed.add(field);
+      }
+    }
+    return changed;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> List<T> castList(Object value) {
+    return (List<T>) value;
+  }
+}
@@ -0,0 +1,38 @@
+package io.kas.bookservice.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.bson.codecs.pojo.annotations.BsonId;
+
+import java.util.List;
+
+// Output document of the search $facet aggregation
+@Getter
+@Setter
+@NoArgsConstructor
+public class BookSearchResult {
+  private List<Hit> hits;
+  private List<Count> total;
+  private List<Count> categories;
+  private List<Count> languages;
+  private List<Count> statuses;
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  public static class Hit {
+    private Book book;
+    private Double score;
+  }
+
+  // Facet bucket, value is the stored enum name and is absent for the total count
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  public static class Count {
+    @BsonId
+    private String value;
+    private Long count;
+  }
+}
@@ -0,0 +1,31 @@
+package io.kas.bookservice.model;
+
+import lombok.*;
+import org.bson.codecs.pojo.annotations.BsonId;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CatalogStat {
+  // "total", or the dimension and the stored enum name, e.g. "category:FICTION"
+  @BsonId
+  private String id;
+
+  // total, category, language or status
+  private String dimension;
+  private String value;
+
+  // Books in the bucket, those with an effective price, and the sum of their effective prices.
+  // As a delta the same fields hold the increments
+  private Long count;
+  private Long pricedCount;
+  private BigDecimal priceSum;
+
+  // Only on the reconciliation document, when the counters were last checked against the books
+  private Instant reconciledAt;
+}
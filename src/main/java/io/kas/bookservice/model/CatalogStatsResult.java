@@ -0,0 +1,32 @@
+package io.kas.bookservice.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.bson.codecs.pojo.annotations.BsonId;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Output document of the catalog statistics $facet aggregation
+@Getter
+@Setter
+@NoArgsConstructor
+public class CatalogStatsResult {
+  private List<Bucket> total;
+  private List<Bucket> categories;
+  private List<Bucket> languages;
+  private List<Bucket> statuses;
+
+  // value is the stored enum name, absent for the total and for books without the field
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  public static class Bucket {
+    @BsonId
+    private String value;
+    private Long count;
+    private Long pricedCount;
+    private BigDecimal priceSum;
+  }
+}
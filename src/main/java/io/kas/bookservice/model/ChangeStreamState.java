@@ -0,0 +1,31 @@
+package io.kas.bookservice.model;
+
+import lombok.*;
+import org.bson.BsonDocument;
+import org.bson.codecs.pojo.annotations.BsonId;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ChangeStreamState {
+  // Name of the watched stream, one document per stream. CatalogSnapshotWriter, OutboxRelay and the
+  // PriceSweeper backfill keep their leases here too
+  @BsonId
+  private String stream;
+
+  // Resume token of the last change whose event Kafka acknowledged
+  private BsonDocument resumeToken;
+
+  // Instance currently publishing the stream and until when its lease holds
+  private String owner;
+  private Instant leaseUntil;
+
+  private Instant updatedAt;
+
+  // Set once a one-off job such as the price backfill has finished
+  private Instant completedAt;
+}
@@ -0,0 +1,26 @@
+package io.kas.bookservice.model;
+
+import lombok.*;
+import org.bson.codecs.pojo.annotations.BsonId;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class IdempotencyRecord {
+  // The client's Idempotency-Key, the unique _id is what collapses concurrent duplicates
+  @BsonId
+  private String key;
+
+  // Hash of the original request body, a reused key with a different body is rejected
+  private String fingerprint;
+
+  // The created book as it was returned, replays answer with it without reading books
+  private Book book;
+
+  // TTL-indexed, records expire after book-service.idempotency.ttl
+  private Instant createdAt;
+}
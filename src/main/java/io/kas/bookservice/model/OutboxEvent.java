@@ -0,0 +1,29 @@
+package io.kas.bookservice.model;
+
+import io.kas.bookservice.dto.events.BookEvent;
+import lombok.*;
+import org.bson.codecs.pojo.annotations.BsonId;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OutboxEvent {
+  // Made on the client before the commit, so it only roughly follows commit order
+  @BsonId
+  private ObjectId id;
+
+  private String key;
+
+  // Position among the key's events, assigned in the writing transaction. The relay publishes each key
+  // in this order
+  private Long sequence;
+
+  private BookEvent event;
+
+  private Instant createdAt;
+}
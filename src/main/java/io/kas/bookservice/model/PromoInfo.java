@@ -1,8 +1,28 @@
 package io.kas.bookservice.model;
 
+import lombok.*;
+
+import java.time.Instant;
 import java.util.UUID;
 
+@Getter
+@Setter
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
 public class PromoInfo {
   private UUID id;
+
+  // Percent off the list price while the promo is active
   private Integer value;
+
+  // Validity window [validFrom, validUntil), an open end means unbounded on that side
+  private Instant validFrom;
+  private Instant validUntil;
+
+  public boolean isActiveAt(Instant instant) {
+    return (validFrom == null || !instant.isBefore(validFrom))
+        && (validUntil == null || instant.isBefore(validUntil));
+  }
 }
@@ -0,0 +1,108 @@
+package io.kas.bookservice.ratelimit;
+
+import io.kas.bookservice.config.RateLimitProperties;
+import io.kas.bookservice.util.metrics.BookMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Limits in-flight requests to what Mongo currently sustains. The limit follows the gradient
+// between a long-term latency baseline and the short-term average of BookDao calls: it grows while
+// the average stays within tolerance of the baseline and shrinks in proportion once Mongo slows
+// down. Writes may hold at most writeShare of the limit, so a write surge cannot take the permits
+// reads need
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+  private static final double SHORT_WEIGHT = 0.1;
+  private static final double LONG_WEIGHT = 0.005;
+  private static final double SMOOTHING = 0.2;
+
+  private final RateLimitProperties.Concurrency properties;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger writesInFlight = new AtomicInteger();
+
+  private volatile int limit;
+
+  // Guarded by this
+  private double estimatedLimit;
+  private double shortLatency;
+  private double longLatency;
+
+  public AdaptiveConcurrencyLimiter(RateLimitProperties rateLimitProperties, BookMetrics metrics,
+                                    MeterRegistry registry) {
+    this.properties = rateLimitProperties.concurrency();
+    this.estimatedLimit = properties.initialLimit();
+    this.limit = properties.initialLimit();
+    metrics.addMongoLatencyListener(this::onMongoLatency);
+    registry.gauge("book.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit);
+    registry.gauge("book.concurrency.in.flight", inFlight);
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public boolean tryAcquire(boolean write) {
+    int current = limit;
+    if (write && !increment(writesInFlight, Math.max(1, (int) (current * properties.writeShare())))) {
+      return false;
+    }
+    if (!increment(inFlight, current)) {
+      if (write) {
+        writesInFlight.decrementAndGet();
+      }
+      return false;
+    }
+    return true;
+  }
+
+  public void release(boolean write) {
+    inFlight.decrementAndGet();
+    if (write) {
+      writesInFlight.decrementAndGet();
+    }
+  }
+
+  void onMongoLatency(String operation, long nanos) {
+    // Streaming exports and text searches are slow by nature, not because Mongo is overloaded
+    if (properties.excludedOperations().contains(operation)) {
+      return;
+    }
+    synchronized (this) {
+      if (longLatency == 0) {
+        shortLatency = nanos;
+        longLatency = nanos;
+        return;
+      }
+      shortLatency += (nanos - shortLatency) * SHORT_WEIGHT;
+      longLatency += (nanos - longLatency) * LONG_WEIGHT;
+      // A baseline far above the current average is stale, let it catch up so the limit can recover
+      if (longLatency > shortLatency * 2) {
+        longLatency *= 0.95;
+      }
+
+      double gradient = Math.max(0.5, Math.min(1.0, properties.tolerance() * longLatency / shortLatency));
+      double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+      // Only a limit that is actually used has earned growing
+      if (target > estimatedLimit && inFlight.get() < estimatedLimit / 2) {
+        return;
+      }
+      estimatedLimit = Math.max(properties.minLimit(), Math.min(properties.maxLimit(),
+          estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING));
+      limit = (int) estimatedLimit;
+    }
+  }
+
+  private static boolean increment(AtomicInteger counter, int max) {
+    int current;
+    do {
+      current = counter.get();
+      if (current >= max) {
+        return false;
+      }
+    } while (!counter.compareAndSet(current, current + 1));
+    return true;
+  }
+}
@@ -0,0 +1,143 @@
+package io.kas.bookservice.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.kas.bookservice.config.RateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Sheds load before it reaches BookController: a client over its token bucket gets 429, a full
+// concurrency limit 503, both immediately and with Retry-After instead of queueing. Reads and writes
+// have separate buckets and write permits are capped, so writes cannot starve reads. Clients are keyed
+// on their address, the concurrency limit is what protects Mongo from clients that rotate addresses
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RateLimitFilter implements WebFilter {
+
+  private final RateLimitProperties properties;
+  private final AdaptiveConcurrencyLimiter limiter;
+  private final MeterRegistry registry;
+  private final Cache<String, TokenBucket> buckets;
+
+  public RateLimitFilter(RateLimitProperties properties, AdaptiveConcurrencyLimiter limiter, MeterRegistry registry) {
+    this.properties = properties;
+    this.limiter = limiter;
+    this.registry = registry;
+    // An idle bucket refills completely, dropping it loses nothing. Maintenance runs on the caller
+    // like in BookCache
+    this.buckets = Caffeine.newBuilder()
+        .maximumSize(properties.maxClients())
+        .expireAfterAccess(1, TimeUnit.MINUTES)
+        .executor(Runnable::run)
+        .build();
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    ServerHttpRequest request = exchange.getRequest();
+    if (!properties.enabled() || !request.getPath().value().startsWith("/api/")) {
+      return chain.filter(exchange);
+    }
+    boolean write = isWrite(request);
+    String trafficClass = write ? "write" : "read";
+
+    RateLimitProperties.Bucket limits = write ? properties.write() : properties.read();
+    long waitNanos = buckets.get(trafficClass + ':' + clientId(request),
+            key -> new TokenBucket(limits.ratePerSecond(), limits.burst(), System.nanoTime()))
+        .tryAcquire(System.nanoTime());
+    if (waitNanos > 0) {
+      return reject(exchange, HttpStatus.TOO_MANY_REQUESTS, Duration.ofNanos(waitNanos), trafficClass,
+          "Rate limit exceeded, retry later");
+    }
+    if (!limiter.tryAcquire(write)) {
+      return reject(exchange, HttpStatus.SERVICE_UNAVAILABLE, properties.concurrency().retryAfter(), trafficClass,
+          "Service is at capacity, retry later");
+    }
+    return chain.filter(exchange)
+        .doFinally(signal -> limiter.release(write));
+  }
+
+  // The batch lookup is a POST but only reads
+  private static boolean isWrite(ServerHttpRequest request) {
+    HttpMethod method = request.getMethod();
+    if (method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS) {
+      return false;
+    }
+    return !(method == HttpMethod.POST && request.getPath().value().endsWith("/_batch"));
+  }
+
+  private String clientId(ServerHttpRequest request) {
+    InetSocketAddress remoteAddress = request.getRemoteAddress();
+    if (remoteAddress == null) {
+      return "unknown";
+    }
+    String address = remoteAddress.getAddress() == null
+        ? remoteAddress.getHostString()
+        : remoteAddress.getAddress().getHostAddress();
+    if (!isTrustedProxy(address)) {
+      return address;
+    }
+    if (properties.trustClientIdHeader()) {
+      String header = request.getHeaders().getFirst(properties.clientIdHeader());
+      if (header != null && !header.isBlank()) {
+        return header;
+      }
+    }
+    return forwardedFor(request, address);
+  }
+
+  // Proxies append the address they received the request from, entries left of the last untrusted
+  // one are whatever the client sent
+  private String forwardedFor(ServerHttpRequest request, String proxyAddress) {
+    List<String> headers = request.getHeaders().get(properties.forwardedForHeader());
+    if (headers == null) {
+      return proxyAddress;
+    }
+    String[] addresses = String.join(",", headers).split(",");
+    for (int i = addresses.length - 1; i >= 0; i--) {
+      String address = addresses[i].trim();
+      if (!address.isEmpty() && !isTrustedProxy(address)) {
+        return address;
+      }
+    }
+    return proxyAddress;
+  }
+
+  private boolean isTrustedProxy(String address) {
+    return properties.trustedProxies() != null && properties.trustedProxies().contains(address);
+  }
+
+  private Mono<Void> reject(ServerWebExchange exchange, HttpStatus status, Duration retryAfter, String trafficClass,
+                            String message) {
+    registry.counter("book.http.rejected", "status", String.valueOf(status.value()), "class", trafficClass)
+        .increment();
+    ServerHttpResponse response = exchange.getResponse();
+    response.setStatusCode(status);
+    // Retry-After is whole seconds, rounded up so a client retrying on time finds a token
+    long seconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+    response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+    DataBuffer body = response.bufferFactory()
+        .wrap(("{\"error\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8));
+    return response.writeWith(Mono.just(body));
+  }
+}
@@ -0,0 +1,29 @@
+package io.kas.bookservice.ratelimit;
+
+// Refills continuously at ratePerSecond up to burst tokens, one token per request
+final class TokenBucket {
+
+  private final double tokensPerNano;
+  private final double capacity;
+
+  private double tokens;
+  private long refilledAt;
+
+  TokenBucket(double ratePerSecond, int burst, long now) {
+    this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+    this.capacity = burst;
+    this.tokens = burst;
+    this.refilledAt = now;
+  }
+
+  // Takes a token and returns 0, or returns the nanos until the next token
+  synchronized long tryAcquire(long now) {
+    tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+    refilledAt = now;
+    if (tokens >= 1) {
+      tokens -= 1;
+      return 0;
+    }
+    return (long) Math.ceil((1 - tokens) / tokensPerNano);
+  }
+}
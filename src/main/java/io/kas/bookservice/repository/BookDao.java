@@ -1,16 +1,56 @@
 package io.kas.bookservice.repository;
 
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BsonField;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Facet;
+import com.mongodb.client.model.Field;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.reactivestreams.client.ChangeStreamPublisher;
 import com.mongodb.reactivestreams.client.ClientSession;
 import com.mongodb.reactivestreams.client.MongoClient;
+import io.kas.bookservice.dto.BookFilter;
+import io.kas.bookservice.exception.BookNotFoundException;
+import io.kas.bookservice.exception.OptimisticLockingFailureException;
 import io.kas.bookservice.model.Book;
+import io.kas.bookservice.model.BookField;
+import io.kas.bookservice.model.BookSearchResult;
+import io.kas.bookservice.model.CatalogStatsResult;
+import io.kas.bookservice.util.metrics.BookMetrics;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import static com.mongodb.client.model.Filters.eq;
 import static com.mongodb.client.model.Updates.combine;
@@ -18,16 +58,22 @@ import static com.mongodb.client.model.Updates.set;
 
 public class BookDao extends BaseDao<Book> {
 
-  public BookDao(MongoClient client) {
+  private static final FindOneAndUpdateOptions RETURN_UPDATED =
+      new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
+
+  private final BookMetrics metrics;
+
+  public BookDao(MongoClient client, BookMetrics metrics) {
     super(client, "book_db", "books", Book.class);
+    this.metrics = metrics;
   }
 
   public Mono<Book> save(Book book) {
     if (book.getVersion() == null) {
       book.setVersion(0L);
     }
-    return Mono.from(collection.insertOne(book))
-        .then(Mono.just(book));
+    return metrics.timeMongo("save", Mono.from(collection.insertOne(book))
+        .then(Mono.just(book)));
   }
 
   // Transactional save method
@@ -35,101 +81,359 @@ public class BookDao extends BaseDao<Book> {
     if (book.getVersion() == null) {
       book.setVersion(0L);
     }
-    return Mono.from(collection.insertOne(session, book))
-        .then(Mono.just(book));
+    return metrics.timeMongo("saveWithSession", Mono.from(collection.insertOne(session, book))
+        .then(Mono.just(book)));
   }
 
   public Flux<Book> findAll() {
-    return Flux.from(collection.find());
+    return metrics.timeMongo("findAll", Flux.from(collection.find()));
+  }
+
+  // Streams the whole collection in _id order, the driver fetches the next batch only on demand
+  public Flux<Book> findAll(List<String> fields, int batchSize) {
+    return metrics.timeMongo("export", Flux.from(collection.find()
+        .projection(fields.isEmpty() ? null : Projections.include(fields))
+        .sort(Sorts.ascending("_id"))
+        .batchSize(batchSize)));
+  }
+
+  // The whole collection as undecoded BSON in _id order, for the warm-start snapshot
+  public Flux<RawBsonDocument> findAllRaw(int batchSize) {
+    return metrics.timeMongo("snapshot", Flux.from(collection.withDocumentClass(RawBsonDocument.class).find()
+        .sort(Sorts.ascending("_id"))
+        .batchSize(batchSize)));
+  }
+
+  // Keyset page ordered by _id, afterId is the last id of the previous page
+  public Flux<Book> findPage(BookFilter bookFilter, UUID afterId, int limit) {
+    List<Bson> filters = new ArrayList<>();
+    if (afterId != null) {
+      filters.add(Filters.gt("_id", afterId));
+    }
+    filters.addAll(filterClauses(bookFilter));
+
+    Bson filter = filters.isEmpty() ? Filters.empty() : Filters.and(filters);
+    return metrics.timeMongo("findPage", Flux.from(collection.find(filter)
+        .sort(Sorts.ascending("_id"))
+        .limit(limit)
+        .batchSize(limit)));
+  }
+
+  // Keyset page ordered by effectivePrice then _id, served by the (effectivePrice, _id) index in
+  // either direction. Books without a price have no effectivePrice and are not listed
+  public Flux<Book> findPageByEffectivePrice(BookFilter bookFilter, boolean descending, BigDecimal afterPrice,
+                                             UUID afterId, int limit) {
+    List<Bson> filters = new ArrayList<>();
+    if (afterPrice == null) {
+      filters.add(Filters.ne("effectivePrice", null));
+    } else if (descending) {
+      filters.add(Filters.or(
+          Filters.lt("effectivePrice", afterPrice),
+          Filters.and(Filters.eq("effectivePrice", afterPrice), Filters.lt("_id", afterId))));
+    } else {
+      filters.add(Filters.or(
+          Filters.gt("effectivePrice", afterPrice),
+          Filters.and(Filters.eq("effectivePrice", afterPrice), Filters.gt("_id", afterId))));
+    }
+    filters.addAll(filterClauses(bookFilter));
+
+    return metrics.timeMongo("findPageByEffectivePrice", Flux.from(collection.find(Filters.and(filters))
+        .sort(descending ? Sorts.descending("effectivePrice", "_id") : Sorts.ascending("effectivePrice", "_id"))
+        .limit(limit)
+        .batchSize(limit)));
+  }
+
+  // Books whose effective price is due to change because a promo window opened or closed
+  public Flux<Book> findRepricingDue(Instant now, int limit) {
+    return metrics.timeMongo("findRepricingDue", Flux.from(collection.find(Filters.lte("nextPriceChangeAt", now))
+        .sort(Sorts.ascending("nextPriceChangeAt"))
+        .limit(limit)
+        .batchSize(limit)));
+  }
+
+  // Priced books written before effectivePrice was stored, in _id order after afterId. Walks the _id
+  // index, so the batches of one backfill make a single pass over the collection
+  public Flux<Book> findMissingEffectivePrice(UUID afterId, int limit) {
+    Bson filter = Filters.and(Filters.ne("price", null), Filters.exists("effectivePrice", false));
+    if (afterId != null) {
+      filter = Filters.and(filter, Filters.gt("_id", afterId));
+    }
+    return metrics.timeMongo("priceBackfill", Flux.from(collection.find(filter)
+        .sort(Sorts.ascending("_id"))
+        .limit(limit)
+        .batchSize(limit)));
+  }
+
+  // Relevance-ordered page plus the total and per-field facet counts over all matches, in one
+  // aggregation. maxTime bounds the cost of very broad queries
+  public Mono<BookSearchResult> search(String query, BookFilter bookFilter, int offset, int limit, Duration maxTime) {
+    List<Bson> filters = new ArrayList<>();
+    filters.add(Filters.text(query));
+    filters.addAll(filterClauses(bookFilter));
+
+    List<Bson> pipeline = List.of(
+        Aggregates.match(Filters.and(filters)),
+        Aggregates.addFields(new Field<>("score", new Document("$meta", "textScore"))),
+        Aggregates.facet(
+            new Facet("hits",
+                Aggregates.sort(Sorts.orderBy(Sorts.descending("score"), Sorts.ascending("_id"))),
+                Aggregates.skip(offset),
+                Aggregates.limit(limit),
+                Aggregates.project(Projections.fields(
+                    Projections.excludeId(),
+                    Projections.computed("score", "$score"),
+                    Projections.computed("book", "$$ROOT"))),
+                Aggregates.project(Projections.exclude("book.score"))),
+            new Facet("total", Aggregates.count("count")),
+            new Facet("categories", Aggregates.sortByCount("$category")),
+            new Facet("languages", Aggregates.sortByCount("$language")),
+            new Facet("statuses", Aggregates.sortByCount("$status"))
+        )
+    );
+    return metrics.timeMongo("search", Mono.from(collection.aggregate(pipeline, BookSearchResult.class)
+        .maxTime(maxTime.toMillis(), TimeUnit.MILLISECONDS)));
+  }
+
+  // Book counts and effective price sums of the whole catalog and per category, language and status,
+  // for reconciling the catalog counters. A collection scan, the $facet output is a few dozen buckets
+  public Mono<CatalogStatsResult> aggregateCatalogStats() {
+    List<BsonField> accumulators = List.of(
+        Accumulators.sum("count", 1),
+        Accumulators.sum("pricedCount",
+            new Document("$cond", List.of(new Document("$isNumber", "$effectivePrice"), 1, 0))),
+        // Always a decimal, a plain $sum of no prices would be an int
+        Accumulators.sum("priceSum",
+            new Document("$toDecimal", new Document("$ifNull", List.of("$effectivePrice", 0)))));
+    List<Bson> pipeline = List.of(
+        Aggregates.facet(
+            new Facet("total", Aggregates.group(null, accumulators)),
+            new Facet("categories", Aggregates.group("$category", accumulators)),
+            new Facet("languages", Aggregates.group("$language", accumulators)),
+            new Facet("statuses", Aggregates.group("$status", accumulators))
+        )
+    );
+    return metrics.timeMongo("catalogStats", Mono.from(collection.aggregate(pipeline, CatalogStatsResult.class)
+        .allowDiskUse(true)));
+  }
+
+  private List<Bson> filterClauses(BookFilter bookFilter) {
+    List<Bson> filters = new ArrayList<>();
+    if (bookFilter.category() != null) {
+      filters.add(Filters.eq("category", bookFilter.category()));
+    }
+    if (bookFilter.language() != null) {
+      filters.add(Filters.eq("language", bookFilter.language()));
+    }
+    if (bookFilter.status() != null) {
+      filters.add(Filters.eq("status", bookFilter.status()));
+    }
+    if (bookFilter.publishedYearFrom() != null) {
+      filters.add(Filters.gte("publishedYear", bookFilter.publishedYearFrom()));
+    }
+    if (bookFilter.publishedYearTo() != null) {
+      filters.add(Filters.lte("publishedYear", bookFilter.publishedYearTo()));
+    }
+    // Price ranges are on what the customer pays
+    if (bookFilter.priceFrom() != null) {
+      filters.add(Filters.gte("effectivePrice", bookFilter.priceFrom()));
+    }
+    if (bookFilter.priceTo() != null) {
+      filters.add(Filters.lte("effectivePrice", bookFilter.priceTo()));
+    }
+    return filters;
   }
 
   public Mono<Book> findById(UUID id) {
     Bson filter = Filters.eq("_id", id);
-    return Mono.from(collection.find(filter));
+    return metrics.timeMongo("findById", Mono.from(collection.find(filter)));
+  }
+
+  public Flux<Book> findByIds(Collection<UUID> ids, List<String> fields) {
+    return metrics.timeMongo("findByIds", Flux.from(collection.find(Filters.in("_id", ids))
+        .projection(fields.isEmpty() ? null : Projections.include(fields))
+        .batchSize(ids.size())));
   }
 
   // Transactional find method
   public Mono<Book> findByIdWithSession(UUID id, ClientSession session) {
     Bson filter = Filters.eq("_id", id);
-    return Mono.from(collection.find(session, filter));
+    return metrics.timeMongo("findByIdWithSession", Mono.from(collection.find(session, filter)));
   }
 
-  public Mono<Book> update(UUID id, long expectedVersion, Book book) {
-    Bson filter = Filters.and(
-        Filters.eq("_id", id),
-        Filters.eq("version", expectedVersion)
-    );
+  // Projection-only lookup of the current version
+  public Mono<Long> findVersionById(UUID id) {
+    return metrics.timeMongo("findVersionById",
+        Mono.from(collection.find(Filters.eq("_id", id))
+                .projection(Projections.include("version")))
+            .mapNotNull(Book::getVersion));
+  }
 
-    Bson updates = Updates.combine(
-        Updates.set("title", book.getTitle()),
-        Updates.set("authors", book.getAuthors()),
-        Updates.set("description", book.getDescription()),
-        Updates.set("coverImage", book.getCoverImage()),
-        Updates.set("category", book.getCategory()),
-        Updates.set("publisher", book.getPublisher()),
-        Updates.set("publishedYear", book.getPublishedYear()),
-        Updates.set("language", book.getLanguage()),
-        Updates.set("pageCount", book.getPageCount()),
-        Updates.set("promos", book.getPromos()),
-        Updates.set("price", book.getPrice()),
-        Updates.set("discount", book.getDiscount()),
-        Updates.set("status", book.getStatus()),
-        Updates.set("version", expectedVersion + 1)
-    );
+  // Projection-only lookup of the current versions, documents carry just _id and version
+  public Flux<Book> findVersionsByIds(Collection<UUID> ids) {
+    return metrics.timeMongo("findVersionsByIds", Flux.from(collection.find(Filters.in("_id", ids))
+        .projection(Projections.include("version"))
+        .batchSize(ids.size())));
+  }
+
+  // Transactional version lookup
+  public Mono<Long> findVersionByIdWithSession(UUID id, ClientSession session) {
+    return metrics.timeMongo("findVersionByIdWithSession",
+        Mono.from(collection.find(session, Filters.eq("_id", id))
+                .projection(Projections.include("version")))
+            .mapNotNull(Book::getVersion));
+  }
 
-    return Mono.from(collection.findOneAndUpdate(filter, updates))
-        .flatMap(updatedDoc -> {
-          if (updatedDoc == null) {
-            return Mono.error(new IllegalStateException("Optimistic lock failed for book " + id));
-          }
-          return findById(id);
-        });
+  public Mono<Book> update(UUID id, long expectedVersion, Book book) {
+    return metrics.timeMongo("update",
+        Mono.from(collection.findOneAndUpdate(versionFilter(id, expectedVersion),
+                versionedUpdates(book, EnumSet.allOf(BookField.class), expectedVersion), RETURN_UPDATED))
+            .switchIfEmpty(Mono.defer(() -> versionConflict(id, findVersionById(id)))));
+  }
+
+  // Transactional update method, sets only the changed fields and returns the updated document
+  // in the same round trip
+  public Mono<Book> updateWithSession(UUID id, long expectedVersion, Book book, Set<BookField> changedFields,
+                                      ClientSession session) {
+    return metrics.timeMongo("updateWithSession",
+        Mono.from(collection.findOneAndUpdate(session, versionFilter(id, expectedVersion),
+                versionedUpdates(book, changedFields, expectedVersion), RETURN_UPDATED))
+            .switchIfEmpty(Mono.defer(() -> versionConflict(id, findVersionByIdWithSession(id, session)))));
   }
 
-  // Transactional update method
-  public Mono<Book> updateWithSession(UUID id, long expectedVersion, Book book, ClientSession session) {
-    Bson filter = Filters.and(
+  private Bson versionFilter(UUID id, long expectedVersion) {
+    return Filters.and(
         Filters.eq("_id", id),
         Filters.eq("version", expectedVersion)
     );
+  }
 
-    Bson updates = Updates.combine(
-        Updates.set("title", book.getTitle()),
-        Updates.set("authors", book.getAuthors()),
-        Updates.set("description", book.getDescription()),
-        Updates.set("coverImage", book.getCoverImage()),
-        Updates.set("category", book.getCategory()),
-        Updates.set("publisher", book.getPublisher()),
-        Updates.set("publishedYear", book.getPublishedYear()),
-        Updates.set("language", book.getLanguage()),
-        Updates.set("pageCount", book.getPageCount()),
-        Updates.set("promos", book.getPromos()),
-        Updates.set("price", book.getPrice()),
-        Updates.set("discount", book.getDiscount()),
-        Updates.set("status", book.getStatus()),
+  private Bson versionedUpdates(Book book, Set<BookField> fields, long expectedVersion) {
+    return Updates.combine(
+        fieldUpdates(book, fields),
         Updates.set("version", expectedVersion + 1)
     );
+  }
 
-    return Mono.from(collection.findOneAndUpdate(session, filter, updates))
-        .flatMap(updatedDoc -> {
-          if (updatedDoc == null) {
-            return Mono.error(new IllegalStateException("Optimistic lock failed for book " + id));
-          }
-          return findByIdWithSession(id, session);
-        });
+  // Only reached when the update matched nothing, tells a missing book from a stale version
+  private Mono<Book> versionConflict(UUID id, Mono<Long> currentVersion) {
+    return currentVersion
+        .flatMap(version -> Mono.<Book>error(new OptimisticLockingFailureException(
+            "Book " + id + " was modified concurrently, current version is " + version)))
+        .switchIfEmpty(Mono.error(new BookNotFoundException("Book not found with id: " + id)));
+  }
+
+  // Unordered bulk write: inserts carry an id and version 0 assigned by the caller, so an attempt repeated
+  // after an aborted transaction inserts the same books. The rest are upserted by id, a new document starts
+  // at version 0 like a single create, an existing one moves up by one. With a version from the client the
+  // update only matches that version, a stored book at another version makes the upsert collide on _id and
+  // the item fails
+  public Mono<BulkWriteResult> bulkWriteWithSession(List<Book> books, boolean[] inserts, ClientSession session) {
+    List<WriteModel<Book>> writes = new ArrayList<>(books.size());
+    for (int i = 0; i < books.size(); i++) {
+      Book book = books.get(i);
+      if (inserts[i]) {
+        writes.add(new InsertOneModel<>(book));
+      } else {
+        // $expr keeps the version out of the document an upsert creates
+        Bson filter = book.getVersion() == null
+            ? Filters.eq("_id", book.getId())
+            : Filters.and(Filters.eq("_id", book.getId()),
+                Filters.expr(new Document("$eq", List.of("$version", book.getVersion()))));
+        writes.add(new UpdateOneModel<>(filter, upsertPipeline(book), new UpdateOptions().upsert(true)));
+      }
+    }
+    return metrics.timeMongo("bulkWriteWithSession",
+        Mono.from(collection.bulkWrite(session, writes, new BulkWriteOptions().ordered(false))));
+  }
+
+  // Pipeline update, the only form that can set the version to 0 on insert and increment it otherwise.
+  // Values are wrapped in $literal, a title starting with $ would otherwise be read as a field path
+  private List<Bson> upsertPipeline(Book book) {
+    Document set = new Document();
+    List<String> unset = new ArrayList<>();
+    for (BookField field : BookField.values()) {
+      Object value = field.get(book);
+      if (value == null) {
+        unset.add(field.fieldName());
+      } else {
+        set.append(field.fieldName(), new Document("$literal", value));
+      }
+    }
+    set.append("version", new Document("$cond", List.of(
+        new Document("$eq", List.of(new Document("$type", "$version"), "missing")),
+        0L,
+        new Document("$add", List.of("$version", 1L)))));
+    List<Bson> pipeline = new ArrayList<>();
+    pipeline.add(new Document("$set", set));
+    if (!unset.isEmpty()) {
+      pipeline.add(new Document("$unset", unset));
+    }
+    return pipeline;
   }
 
   public Mono<Boolean> delete(UUID id) {
-    return Mono.from(collection.deleteOne(eq("_id", id)))
+    return metrics.timeMongo("delete", Mono.from(collection.deleteOne(eq("_id", id)))
         .map(result -> result.getDeletedCount() == 1)
-        .defaultIfEmpty(false);
+        .defaultIfEmpty(false));
+  }
+
+  // Transactional delete method returning the deleted document
+  public Mono<Book> findAndDeleteWithSession(UUID id, ClientSession session) {
+    return metrics.timeMongo("findAndDeleteWithSession", Mono.from(collection.findOneAndDelete(session, eq("_id", id))));
   }
 
   // Transactional delete method
   public Mono<Boolean> deleteWithSession(UUID id, ClientSession session) {
-    return Mono.from(collection.deleteOne(session, eq("_id", id)))
+    return metrics.timeMongo("deleteWithSession", Mono.from(collection.deleteOne(session, eq("_id", id)))
         .map(result -> result.getDeletedCount() == 1)
-        .defaultIfEmpty(false);
+        .defaultIfEmpty(false));
+  }
+
+  // Inserts, updates and deletes of books after resumeAfter, or from now on when it is null. Updates
+  // carry the current document, looked up when the change is read, so it may already reflect later writes
+  public Flux<ChangeStreamDocument<Book>> watch(BsonDocument resumeAfter, int batchSize) {
+    ChangeStreamPublisher<Book> changes = collection.watch(List.of(Aggregates.match(
+            Filters.in("operationType", List.of("insert", "update", "replace", "delete")))), Book.class)
+        .fullDocument(FullDocument.UPDATE_LOOKUP)
+        .batchSize(batchSize);
+    return Flux.from(resumeAfter == null ? changes : changes.resumeAfter(resumeAfter));
+  }
+
+  // Supporting indexes for the filtered listing, equality fields first and _id as the keyset sort,
+  // and the text index behind search with titles weighted above authors and descriptions. The text
+  // index must not read the language field as its per-document language (KZ is not a text search
+  // language), and stemming is off because the catalog mixes languages
+  public Mono<Void> createIndexes() {
+    return Flux.from(collection.createIndexes(List.of(
+            new IndexModel(Indexes.compoundIndex(
+                Indexes.text("title"), Indexes.text("authors"), Indexes.text("description")),
+                new IndexOptions().name("book_text")
+                    .languageOverride("textLanguage")
+                    .defaultLanguage("none")
+                    .weights(new Document()
+                        .append("title", 10)
+                        .append("authors", 5)
+                        .append("description", 1))),
+            new IndexModel(Indexes.ascending("category", "status", "_id")),
+            new IndexModel(Indexes.ascending("language", "_id")),
+            new IndexModel(Indexes.ascending("status", "_id")),
+            new IndexModel(Indexes.ascending("publishedYear", "_id")),
+            new IndexModel(Indexes.ascending("effectivePrice", "_id")),
+            // Only books with an upcoming promo boundary carry the field
+            new IndexModel(Indexes.ascending("nextPriceChangeAt"), new IndexOptions().sparse(true))
+        )))
+        .then();
+  }
+
+  // Cleared fields are removed rather than set to null, like inserts leave them out, so sparse
+  // indexes skip them
+  private Bson fieldUpdates(Book book, Set<BookField> fields) {
+    List<Bson> updates = new ArrayList<>(fields.size());
+    for (BookField field : fields) {
+      Object value = field.get(book);
+      updates.add(value == null ? Updates.unset(field.fieldName()) : Updates.set(field.fieldName(), value));
+    }
+    return Updates.combine(updates);
   }
 
   // Helper method to start a session
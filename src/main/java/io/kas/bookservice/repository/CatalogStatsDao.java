@@ -0,0 +1,74 @@
+package io.kas.bookservice.repository;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoClient;
+import io.kas.bookservice.model.CatalogStat;
+import io.kas.bookservice.util.metrics.BookMetrics;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public class CatalogStatsDao extends BaseDao<CatalogStat> {
+
+  public static final String RECONCILIATION = "reconciliation";
+  private static final int DUPLICATE_KEY = 11000;
+
+  private final BookMetrics metrics;
+
+  public CatalogStatsDao(MongoClient client, BookMetrics metrics) {
+    super(client, "book_db", "book_catalog_stats", CatalogStat.class);
+    this.metrics = metrics;
+  }
+
+  // The counters and the reconciliation document, a few dozen documents whatever the catalog size
+  public Flux<CatalogStat> findAll() {
+    return metrics.timeMongo("catalogStats.findAll", Flux.from(collection.find()));
+  }
+
+  // One unordered $inc upsert per bucket. Not part of the book write's transaction, where concurrent
+  // writes would all conflict on the same few counter documents
+  public Mono<Void> applyDeltas(Collection<CatalogStat> deltas) {
+    if (deltas.isEmpty()) {
+      return Mono.empty();
+    }
+    List<WriteModel<CatalogStat>> writes = deltas.stream()
+        .<WriteModel<CatalogStat>>map(delta -> new UpdateOneModel<>(
+            Filters.eq("_id", delta.getId()),
+            Updates.combine(
+                Updates.setOnInsert("dimension", delta.getDimension()),
+                Updates.setOnInsert("value", delta.getValue()),
+                Updates.inc("count", delta.getCount()),
+                Updates.inc("pricedCount", delta.getPricedCount()),
+                Updates.inc("priceSum", delta.getPriceSum())),
+            new UpdateOptions().upsert(true)))
+        .toList();
+    return metrics.timeMongo("catalogStats.applyDeltas",
+            Mono.from(collection.bulkWrite(writes, new BulkWriteOptions().ordered(false))))
+        .then();
+  }
+
+  // At most one reconciliation per minInterval across instances. While the last one is more recent
+  // the filter misses and the upsert collides with the existing _id
+  public Mono<Boolean> claimReconciliation(Duration minInterval) {
+    Instant now = Instant.now();
+    return metrics.timeMongo("catalogStats.claimReconciliation", Mono.from(collection.updateOne(
+            Filters.and(
+                Filters.eq("_id", RECONCILIATION),
+                Filters.or(Filters.lt("reconciledAt", now.minus(minInterval)), Filters.exists("reconciledAt", false))),
+            Updates.combine(Updates.set("dimension", RECONCILIATION), Updates.set("reconciledAt", now)),
+            new UpdateOptions().upsert(true)))
+        .thenReturn(true)
+        .onErrorResume(ex -> ex instanceof MongoException mongoException && mongoException.getCode() == DUPLICATE_KEY,
+            ex -> Mono.just(false)));
+  }
+}
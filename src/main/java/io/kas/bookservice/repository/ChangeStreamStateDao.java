@@ -0,0 +1,67 @@
+package io.kas.bookservice.repository;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.reactivestreams.client.MongoClient;
+import io.kas.bookservice.model.ChangeStreamState;
+import io.kas.bookservice.util.metrics.BookMetrics;
+import org.bson.BsonDocument;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public class ChangeStreamStateDao extends BaseDao<ChangeStreamState> {
+
+  private static final int DUPLICATE_KEY = 11000;
+
+  private final BookMetrics metrics;
+
+  public ChangeStreamStateDao(MongoClient client, BookMetrics metrics) {
+    super(client, "book_db", "book_change_streams", ChangeStreamState.class);
+    this.metrics = metrics;
+  }
+
+  public Mono<BsonDocument> findResumeToken(String stream) {
+    return metrics.timeMongo("changeStream.findResumeToken", Mono.from(collection.find(Filters.eq("_id", stream))))
+        .mapNotNull(ChangeStreamState::getResumeToken);
+  }
+
+  // Takes or renews the lease. While another owner's lease is live the filter misses and the upsert
+  // collides with the existing _id, which means the lease is held elsewhere
+  public Mono<Boolean> acquireLease(String stream, String owner, Duration leaseDuration) {
+    Instant now = Instant.now();
+    return metrics.timeMongo("changeStream.acquireLease", Mono.from(collection.updateOne(
+            Filters.and(
+                Filters.eq("_id", stream),
+                Filters.or(Filters.eq("owner", owner), Filters.lt("leaseUntil", now), Filters.exists("owner", false))),
+            Updates.combine(Updates.set("owner", owner), Updates.set("leaseUntil", now.plus(leaseDuration))),
+            new UpdateOptions().upsert(true)))
+        .thenReturn(true)
+        .onErrorResume(ex -> ex instanceof MongoException mongoException && mongoException.getCode() == DUPLICATE_KEY,
+            ex -> Mono.just(false)));
+  }
+
+  public Mono<Instant> findCompletedAt(String stream) {
+    return metrics.timeMongo("changeStream.findCompletedAt", Mono.from(collection.find(Filters.eq("_id", stream))))
+        .mapNotNull(ChangeStreamState::getCompletedAt);
+  }
+
+  // Only the lease owner may record completion, false means the lease was lost to another instance
+  public Mono<Boolean> markCompleted(String stream, String owner) {
+    return metrics.timeMongo("changeStream.markCompleted", Mono.from(collection.updateOne(
+            Filters.and(Filters.eq("_id", stream), Filters.eq("owner", owner)),
+            Updates.set("completedAt", Instant.now()))))
+        .map(result -> result.getMatchedCount() == 1);
+  }
+
+  // Only the lease owner may move the token, false means the lease was lost to another instance
+  public Mono<Boolean> saveResumeToken(String stream, String owner, BsonDocument resumeToken) {
+    return metrics.timeMongo("changeStream.saveResumeToken", Mono.from(collection.updateOne(
+            Filters.and(Filters.eq("_id", stream), Filters.eq("owner", owner)),
+            Updates.combine(Updates.set("resumeToken", resumeToken), Updates.set("updatedAt", Instant.now()))))
+        .map(result -> result.getMatchedCount() == 1));
+  }
+}
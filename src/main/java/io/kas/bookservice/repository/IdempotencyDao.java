@@ -0,0 +1,48 @@
+package io.kas.bookservice.repository;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.reactivestreams.client.ClientSession;
+import com.mongodb.reactivestreams.client.MongoClient;
+import io.kas.bookservice.exception.DuplicateRequestException;
+import io.kas.bookservice.model.IdempotencyRecord;
+import io.kas.bookservice.util.metrics.BookMetrics;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+public class IdempotencyDao extends BaseDao<IdempotencyRecord> {
+
+  private static final int DUPLICATE_KEY = 11000;
+  private static final int WRITE_CONFLICT = 112;
+
+  private final BookMetrics metrics;
+
+  public IdempotencyDao(MongoClient client, BookMetrics metrics) {
+    super(client, "book_db", "book_idempotency_keys", IdempotencyRecord.class);
+    this.metrics = metrics;
+  }
+
+  public Mono<IdempotencyRecord> findByKey(String key) {
+    return metrics.timeMongo("idempotency.findByKey", Mono.from(collection.find(Filters.eq("_id", key))));
+  }
+
+  // Transactional save method. A committed record with the same key fails with a duplicate key
+  // error, one still in flight in another transaction with a write conflict, both mean the key is taken
+  public Mono<IdempotencyRecord> saveWithSession(IdempotencyRecord record, ClientSession session) {
+    return metrics.timeMongo("idempotency.saveWithSession", Mono.from(collection.insertOne(session, record))
+        .then(Mono.just(record))
+        .onErrorMap(ex -> ex instanceof MongoException mongoException
+                && (mongoException.getCode() == DUPLICATE_KEY || mongoException.getCode() == WRITE_CONFLICT),
+            ex -> new DuplicateRequestException("Idempotency-Key " + record.getKey() + " is already in use", ex)));
+  }
+
+  public Mono<Void> createIndexes(Duration ttl) {
+    return Mono.from(collection.createIndex(Indexes.ascending("createdAt"),
+            new IndexOptions().name("createdAt_ttl").expireAfter(ttl.toSeconds(), TimeUnit.SECONDS)))
+        .then();
+  }
+}
@@ -0,0 +1,112 @@
+package io.kas.bookservice.repository;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.ClientSession;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import io.kas.bookservice.model.OutboxEvent;
+import io.kas.bookservice.util.metrics.BookMetrics;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class OutboxDao extends BaseDao<OutboxEvent> {
+
+  private final BookMetrics metrics;
+  // Last sequence handed out per key, one small document per book
+  private final MongoCollection<Document> sequences;
+
+  public OutboxDao(MongoClient client, BookMetrics metrics) {
+    super(client, "book_db", "book_outbox", OutboxEvent.class);
+    this.metrics = metrics;
+    this.sequences = client.getDatabase("book_db").getCollection("book_outbox_sequences");
+  }
+
+  public Mono<Void> createIndexes() {
+    return Mono.from(collection.createIndex(Indexes.ascending("key", "sequence"))).then();
+  }
+
+  // Transactional save method, the event becomes visible only with the book write. The key's sequence is
+  // taken in the same transaction: two writes to one key conflict on its counter, so per key the sequence
+  // follows commit order
+  public Mono<OutboxEvent> saveWithSession(OutboxEvent event, ClientSession session) {
+    if (event.getId() == null) {
+      event.setId(new ObjectId());
+    }
+    return metrics.timeMongo("outbox.nextSequence", Mono.from(sequences.findOneAndUpdate(session,
+            Filters.eq("_id", event.getKey()),
+            Updates.inc("sequence", 1L),
+            new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER))))
+        .flatMap(sequence -> {
+          event.setSequence(sequence.getLong("sequence"));
+          return metrics.timeMongo("outbox.saveWithSession", Mono.from(collection.insertOne(session, event)));
+        })
+        .then(Mono.just(event));
+  }
+
+  public Mono<Void> saveAllWithSession(List<OutboxEvent> events, ClientSession session) {
+    if (events.isEmpty()) {
+      return Mono.empty();
+    }
+    events.forEach(event -> {
+      if (event.getId() == null) {
+        event.setId(new ObjectId());
+      }
+    });
+    // One increment per key covers all of its events, they take the last sequences in list order
+    Map<String, Long> counts = events.stream()
+        .collect(Collectors.groupingBy(OutboxEvent::getKey, LinkedHashMap::new, Collectors.counting()));
+    List<WriteModel<Document>> increments = counts.entrySet().stream()
+        .<WriteModel<Document>>map(count -> new UpdateOneModel<>(Filters.eq("_id", count.getKey()),
+            Updates.inc("sequence", count.getValue()), new UpdateOptions().upsert(true)))
+        .toList();
+    return metrics.timeMongo("outbox.nextSequences", Mono.from(sequences.bulkWrite(session, increments)))
+        .thenMany(Flux.from(sequences.find(session, Filters.in("_id", counts.keySet()))))
+        .collectMap(sequence -> sequence.getString("_id"), sequence -> sequence.getLong("sequence"))
+        .flatMap(last -> {
+          Map<String, Long> next = new HashMap<>();
+          counts.forEach((key, count) -> next.put(key, last.get(key) - count + 1));
+          events.forEach(event -> event.setSequence(next.merge(event.getKey(), 1L, Long::sum) - 1));
+          return metrics.timeMongo("outbox.saveAllWithSession", Mono.from(collection.insertMany(session, events)));
+        })
+        .then();
+  }
+
+  // _id is made on the client before the commit, so the oldest window by it may miss events committed
+  // earlier. It only picks the keys, findPendingByKeys then reads them in sequence order
+  public Flux<OutboxEvent> findOldest(int limit) {
+    return metrics.timeMongo("outbox.findOldest", Flux.from(collection.find()
+        .sort(Sorts.ascending("_id"))
+        .limit(limit)
+        .batchSize(limit)));
+  }
+
+  // All pending events of the keys, each key in sequence order. Events written before sequences existed
+  // have none and sort first, by _id among themselves
+  public Flux<OutboxEvent> findPendingByKeys(Collection<String> keys) {
+    return metrics.timeMongo("outbox.findPendingByKeys", Flux.from(collection.find(Filters.in("key", keys))
+        .sort(Sorts.ascending("key", "sequence", "_id"))));
+  }
+
+  public Mono<Long> deleteByIds(List<ObjectId> ids) {
+    return metrics.timeMongo("outbox.deleteByIds", Mono.from(collection.deleteMany(Filters.in("_id", ids)))
+        .map(result -> result.getDeletedCount())
+        .defaultIfEmpty(0L));
+  }
+}
@@ -0,0 +1,131 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.cache.BookCache;
+import io.kas.bookservice.config.OutboxProperties;
+import io.kas.bookservice.dto.events.BookEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverPartition;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class BookEventConsumer {
+
+  private final ReceiverOptions<String, BookEvent> receiverOptions;
+  private final OutboxProperties outboxProperties;
+  private final List<BookEventListener> listeners;
+  private final CatalogWarmStart warmStart;
+  private final BookCache bookCache;
+  // Next offset to read per partition. A receiver recreated after an error resumes there instead of at
+  // the log end, the invalidations published in between would otherwise be skipped
+  private final Map<TopicPartition, Long> positions = new ConcurrentHashMap<>();
+
+  private volatile KafkaReceiver<String, BookEvent> receiver;
+  private Disposable subscription;
+
+  // A warm start loads its snapshot before the first record is read. Partitions added to book-topic
+  // later are picked up on the next restart
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    subscription = warmStart.restore()
+        .thenMany(Mono.fromCallable(this::partitions)
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(partitions -> {
+              receiver = KafkaReceiver.create(receiverOptions.assignment(partitions)
+                  .addAssignListener(this::onAssigned));
+              return receiver.receive();
+            })
+            .doOnNext(this::dispatch)
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))))
+        .subscribe();
+  }
+
+  // End offsets of the assigned book-topic partitions, empty until the consumer has its assignment
+  public Mono<Map<TopicPartition, Long>> endOffsets() {
+    KafkaReceiver<String, BookEvent> current = receiver;
+    if (current == null) {
+      return Mono.just(Map.of());
+    }
+    return current.doOnConsumer(consumer -> consumer.endOffsets(consumer.assignment()));
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (subscription != null) {
+      subscription.dispose();
+    }
+  }
+
+  // The first assignment is the warm start's to position, later ones come from a recreated receiver
+  private void onAssigned(Collection<ReceiverPartition> partitions) {
+    if (positions.isEmpty()) {
+      warmStart.onAssigned(partitions);
+    }
+    for (ReceiverPartition partition : partitions) {
+      TopicPartition topicPartition = partition.topicPartition();
+      Long position = positions.get(topicPartition);
+      Long beginningOffset = partition.beginningOffset();
+      if (position == null) {
+        positions.put(topicPartition, partition.position());
+      } else if (beginningOffset != null && position < beginningOffset) {
+        log.warn("{} no longer holds offset {}, dropping the cached books", topicPartition, position);
+        bookCache.invalidateAll();
+        partition.seekToBeginning();
+      } else {
+        partition.seek(position);
+      }
+    }
+  }
+
+  private void dispatch(ReceiverRecord<String, BookEvent> record) {
+    BookEvent event = record.value();
+    if (event != null) {
+      for (BookEventListener listener : listeners) {
+        try {
+          listener.onEvent(event);
+        } catch (Exception e) {
+          log.error("Listener {} failed on event {}: {}",
+              listener.getClass().getSimpleName(), event.getEventId(), e.getMessage(), e);
+        }
+      }
+    }
+    TopicPartition topicPartition = record.receiverOffset().topicPartition();
+    positions.put(topicPartition, record.receiverOffset().offset() + 1);
+    warmStart.onApplied(topicPartition, record.receiverOffset().offset());
+  }
+
+  private List<TopicPartition> partitions() {
+    String topic = outboxProperties.topic();
+    try (Consumer<String, BookEvent> consumer = new KafkaConsumer<>(receiverOptions.consumerProperties())) {
+      List<PartitionInfo> partitions = consumer.partitionsFor(topic);
+      if (partitions == null || partitions.isEmpty()) {
+        throw new IllegalStateException("No partitions found for " + topic);
+      }
+      return partitions.stream()
+          .map(partition -> new TopicPartition(topic, partition.partition()))
+          .toList();
+    }
+  }
+}
@@ -0,0 +1,8 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.dto.events.BookEvent;
+
+// Receives every event published to book-topic, including the ones written by this instance
+public interface BookEventListener {
+  void onEvent(BookEvent event);
+}
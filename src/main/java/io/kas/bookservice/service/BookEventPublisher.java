@@ -0,0 +1,96 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.config.BookKafkaProperties;
+import io.kas.bookservice.dto.events.BookEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Funnels every publish into one long-lived KafkaSender.send, so concurrent publishers fill the
+// same producer batches instead of each send subscribing, flushing and completing on its own
+@Slf4j
+@Component
+public class BookEventPublisher {
+
+  private static final Duration EMIT_CONTENTION = Duration.ofMillis(100);
+
+  private final KafkaSender<String, BookEvent> kafkaSender;
+  private final Sinks.Many<SenderRecord<String, BookEvent, Sinks.One<Void>>> records;
+  // Results of the records taken by the current send, a failed send drops them without a SenderResult
+  private final Set<Sinks.One<Void>> inFlight = ConcurrentHashMap.newKeySet();
+
+  private Disposable subscription;
+
+  public BookEventPublisher(KafkaSender<String, BookEvent> kafkaSender, BookKafkaProperties kafkaProperties) {
+    this.kafkaSender = kafkaSender;
+    // Not auto-cancelled, records keep buffering while the send is resubscribed after an error
+    this.records = Sinks.many().multicast()
+        .onBackpressureBuffer(kafkaProperties.producer().publishQueueSize(), false);
+  }
+
+  @PostConstruct
+  public void start() {
+    subscription = kafkaSender.send(records.asFlux().doOnNext(record -> inFlight.add(record.correlationMetadata())))
+        .doOnNext(this::complete)
+        .doOnError(e -> {
+          log.error("Kafka send pipeline failed, restarting: {}", e.getMessage());
+          failInFlight(e);
+        })
+        .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+        .subscribe();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (subscription != null) {
+      subscription.dispose();
+    }
+  }
+
+  // Completes once Kafka acknowledged the record. Records are handed to the producer in subscription
+  // order, callers that need ordering subscribe sequentially. Concurrent publishers retry a contended
+  // emission for at most EMIT_CONTENTION, a full queue fails at once
+  public Mono<Void> publish(String topic, String key, BookEvent event) {
+    return Mono.defer(() -> {
+      Sinks.One<Void> result = Sinks.one();
+      try {
+        records.emitNext(SenderRecord.create(topic, null, null, key, event, result),
+            Sinks.EmitFailureHandler.busyLooping(EMIT_CONTENTION));
+      } catch (Sinks.EmissionException e) {
+        return Mono.error(new IllegalStateException("Event not accepted for publishing: " + e.getReason()));
+      }
+      return result.asMono();
+    });
+  }
+
+  // The records may or may not have reached Kafka, callers retry and consumers dedupe by eventId
+  private void failInFlight(Throwable error) {
+    RuntimeException failure = new RuntimeException("Kafka send pipeline failed: " + error.getMessage(), error);
+    for (Sinks.One<Void> result : inFlight) {
+      inFlight.remove(result);
+      result.tryEmitError(failure);
+    }
+  }
+
+  private void complete(SenderResult<Sinks.One<Void>> result) {
+    inFlight.remove(result.correlationMetadata());
+    if (result.exception() != null) {
+      result.correlationMetadata().tryEmitError(
+          new RuntimeException("Kafka send failed: " + result.exception().getMessage(), result.exception()));
+    } else {
+      result.correlationMetadata().tryEmitEmpty();
+    }
+  }
+}
@@ -1,165 +1,959 @@
 package io.kas.bookservice.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import io.kas.bookservice.cache.BookCache;
+import io.kas.bookservice.config.BulkProperties;
+import io.kas.bookservice.config.EventsProperties;
+import io.kas.bookservice.config.ExportProperties;
+import io.kas.bookservice.config.IdempotencyProperties;
+import io.kas.bookservice.config.PaginationProperties;
+import io.kas.bookservice.config.SearchIndexProperties;
+import io.kas.bookservice.config.SearchProperties;
+import io.kas.bookservice.config.UpdateProperties;
+import io.kas.bookservice.config.WriteProperties;
+import io.kas.bookservice.dto.BatchLookupItem;
+import io.kas.bookservice.dto.BatchLookupRequest;
 import io.kas.bookservice.dto.BookDto;
+import io.kas.bookservice.dto.BookFilter;
+import io.kas.bookservice.dto.BookPage;
+import io.kas.bookservice.dto.BookSearchFacets;
+import io.kas.bookservice.dto.BookSearchHit;
+import io.kas.bookservice.dto.BookSearchPage;
+import io.kas.bookservice.dto.BookSuggestion;
+import io.kas.bookservice.dto.BulkItemResult;
+import io.kas.bookservice.dto.CatalogStats;
+import io.kas.bookservice.dto.FacetCount;
+import io.kas.bookservice.dto.ProjectedBook;
+import io.kas.bookservice.dto.StatsBucket;
 import io.kas.bookservice.dto.events.BookEvent;
 import io.kas.bookservice.exception.BookNotFoundException;
+import io.kas.bookservice.exception.DuplicateRequestException;
+import io.kas.bookservice.exception.InvalidBookException;
+import io.kas.bookservice.exception.InvalidRequestException;
+import io.kas.bookservice.exception.OptimisticLockingFailureException;
+import io.kas.bookservice.exception.SearchIndexUnavailableException;
+import io.kas.bookservice.index.BookSearchIndex;
 import io.kas.bookservice.model.Book;
+import io.kas.bookservice.model.BookField;
+import io.kas.bookservice.model.BookSearchResult;
+import io.kas.bookservice.model.CatalogStat;
+import io.kas.bookservice.model.Category;
+import io.kas.bookservice.model.IdempotencyRecord;
+import io.kas.bookservice.model.Language;
+import io.kas.bookservice.model.OutboxEvent;
+import io.kas.bookservice.model.Status;
 import io.kas.bookservice.repository.BookDao;
+import io.kas.bookservice.repository.CatalogStatsDao;
+import io.kas.bookservice.repository.IdempotencyDao;
+import io.kas.bookservice.repository.OutboxDao;
 import io.kas.bookservice.util.mapper.BookMapper;
+import io.kas.bookservice.util.http.ETags;
+import io.kas.bookservice.util.metrics.BookMetrics;
+import io.kas.bookservice.util.pricing.BookPricing;
+import io.kas.bookservice.util.stats.CatalogStatsDeltas;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.kafka.sender.KafkaSender;
-import reactor.kafka.sender.SenderRecord;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.retry.Retry;
 import com.mongodb.reactivestreams.client.ClientSession;
 
-import java.time.Duration;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @RequiredArgsConstructor
 @Service
 public class BookService {
 
+  private static final int WRITE_CONFLICT = 112;
+  private static final int DUPLICATE_KEY = 11000;
+
+  private static final Set<BookField> ALL_FIELDS = Collections.unmodifiableSet(EnumSet.allOf(BookField.class));
+
+  private static final Set<BookField> UNPUBLISHED_FIELDS =
+      Collections.unmodifiableSet(EnumSet.of(BookField.PROMOS, BookField.NEXT_PRICE_CHANGE_AT));
+
+  private static final Set<String> BOOK_DTO_FIELDS = Arrays.stream(BookDto.class.getRecordComponents())
+      .map(RecordComponent::getName)
+      .collect(Collectors.toCollection(LinkedHashSet::new));
+
   private final BookDao bookDao;
+  private final BookCache bookCache;
+  private final BookSearchIndex searchIndex;
   private final BookMapper bookMapper;
-  private final KafkaSender<String, BookEvent> kafkaSender;
+  private final OutboxDao outboxDao;
+  private final IdempotencyDao idempotencyDao;
+  private final CatalogStatsDao catalogStatsDao;
+  private final PaginationProperties paginationProperties;
+  private final SearchProperties searchProperties;
+  private final SearchIndexProperties searchIndexProperties;
+  private final ExportProperties exportProperties;
+  private final BulkProperties bulkProperties;
+  private final UpdateProperties updateProperties;
+  private final IdempotencyProperties idempotencyProperties;
+  private final WriteProperties writeProperties;
+  private final EventsProperties eventsProperties;
+  private final Validator validator;
+  private final ObjectMapper objectMapper;
+  private final Scheduler offloadScheduler;
+  private final BookMetrics metrics;
+
+  // sort is id (the default), effectivePrice or -effectivePrice, the cursor encodes the sort key
+  public Mono<BookPage> getBooks(BookFilter filter, String cursor, Integer limit, String sort) {
+    int pageSize = limit == null
+        ? paginationProperties.defaultLimit()
+        : Math.max(1, Math.min(limit, paginationProperties.maxLimit()));
+
+    // One extra document tells whether there is a next page
+    if (sort == null || sort.equals("id")) {
+      return bookDao.findPage(filter, decodeCursor(cursor), pageSize + 1)
+          .collectList()
+          .map(books -> toPage(books, pageSize, last -> encodeCursor(last.getId())));
+    }
+    boolean descending = sort.equals("-effectivePrice");
+    if (!descending && !sort.equals("effectivePrice")) {
+      return Mono.error(new InvalidRequestException(
+          "Unknown sort: " + sort + ". Allowed sorts: id, effectivePrice, -effectivePrice"));
+    }
+    PriceCursor after = decodePriceCursor(cursor);
+    return bookDao.findPageByEffectivePrice(filter, descending,
+            after == null ? null : after.effectivePrice(), after == null ? null : after.id(), pageSize + 1)
+        .collectList()
+        .map(books -> toPage(books, pageSize, last -> encodePriceCursor(last.getEffectivePrice(), last.getId())));
+  }
+
+  private BookPage toPage(List<Book> books, int pageSize, Function<Book, String> cursorAfter) {
+    boolean hasNext = books.size() > pageSize;
+    List<Book> page = hasNext ? books.subList(0, pageSize) : books;
+    String nextCursor = hasNext ? cursorAfter.apply(page.get(page.size() - 1)) : null;
+    return new BookPage(page.stream().map(bookMapper::toDto).toList(), nextCursor);
+  }
+
+  public Mono<BookSearchPage> searchBooks(String query, BookFilter filter, Integer offset, Integer limit) {
+    if (query == null || query.isBlank()) {
+      return Mono.error(new InvalidRequestException("Search query must not be blank"));
+    }
+    int skip = offset == null ? 0 : offset;
+    if (skip < 0 || skip > searchProperties.maxOffset()) {
+      return Mono.error(new InvalidRequestException(
+          "Offset must be between 0 and " + searchProperties.maxOffset()));
+    }
+    int pageSize = limit == null
+        ? searchProperties.defaultLimit()
+        : Math.max(1, Math.min(limit, searchProperties.maxLimit()));
+
+    return bookDao.search(query.trim(), filter, skip, pageSize, searchProperties.maxTime())
+        .map(result -> new BookSearchPage(
+            result.getHits().stream()
+                .map(hit -> new BookSearchHit(bookMapper.toDto(hit.getBook()), hit.getScore()))
+                .toList(),
+            result.getTotal().isEmpty() ? 0 : result.getTotal().get(0).getCount(),
+            skip,
+            pageSize,
+            new BookSearchFacets(
+                toFacetCounts(result.getCategories(), Category::valueOf),
+                toFacetCounts(result.getLanguages(), Language::valueOf),
+                toFacetCounts(result.getStatuses(), Status::valueOf))));
+  }
+
+  // Served from the in-memory index only, a disabled or still bootstrapping index answers 503
+  public Mono<List<BookSuggestion>> autocomplete(String query, Integer limit) {
+    if (!searchIndex.isReady()) {
+      return Mono.error(new SearchIndexUnavailableException(searchIndex.isEnabled()
+          ? "Search index is still loading"
+          : "Search index is disabled on this instance"));
+    }
+    int size = limit == null
+        ? searchIndexProperties.defaultLimit()
+        : Math.max(1, Math.min(limit, searchIndexProperties.maxLimit()));
+    return Mono.fromCallable(() -> searchIndex.autocomplete(query, size));
+  }
+
+  public Flux<ProjectedBook> exportBooks(List<String> fields) {
+    return Flux.defer(() -> {
+      List<String> projection = toProjectedFields(fields);
+      return bookDao.findAll(projection, exportProperties.batchSize())
+          .map(book -> new ProjectedBook(bookMapper.toDto(book), !projection.isEmpty()));
+    });
+  }
 
-  public Flux<BookDto> getBooks() {
-    return bookDao.findAll().map(bookMapper::toDto);
+  // Served from the counter documents, a few dozen small reads whatever the catalog size
+  public Mono<CatalogStats> getCatalogStats() {
+    return catalogStatsDao.findAll().collectList().map(stats -> {
+      Map<String, List<CatalogStat>> byDimension = stats.stream()
+          .filter(CatalogStatsDeltas::isCounter)
+          .filter(stat -> stat.getCount() != null && stat.getCount() > 0)
+          .sorted(Comparator.comparing(CatalogStat::getCount).reversed())
+          .collect(Collectors.groupingBy(CatalogStat::getDimension));
+      CatalogStat total = byDimension.getOrDefault(CatalogStatsDeltas.TOTAL, List.of()).stream()
+          .findFirst()
+          .orElse(null);
+      return new CatalogStats(
+          total == null ? 0 : total.getCount(),
+          total == null ? null : averageEffectivePrice(total),
+          toStatsBuckets(byDimension.get(CatalogStatsDeltas.CATEGORY), Category::valueOf),
+          toStatsBuckets(byDimension.get(CatalogStatsDeltas.LANGUAGE), Language::valueOf),
+          toStatsBuckets(byDimension.get(CatalogStatsDeltas.STATUS), Status::valueOf),
+          stats.stream()
+              .filter(stat -> CatalogStatsDao.RECONCILIATION.equals(stat.getId()))
+              .map(CatalogStat::getReconciledAt)
+              .findFirst()
+              .orElse(null));
+    });
   }
 
   public Mono<BookDto> getBook(UUID id) {
-    return bookDao.findById(id).switchIfEmpty(
+    return bookCache.get(id, bookDao::findById).switchIfEmpty(
             Mono.error(new BookNotFoundException("Book not found with id: " + id)))
         .map(bookMapper::toDto);
   }
 
-  public Mono<BookDto> saveBook(Mono<BookDto> bookDtoMono) {
-    return bookDtoMono.map(bookMapper::toEntity)
-        .flatMap(entity -> {
-          if (entity.getId() == null) {
-            entity.setId(UUID.randomUUID());
+  // Projection-only lookup for conditional requests, the book itself is read only when it changed
+  public Mono<Long> getBookVersion(UUID id) {
+    return bookDao.findVersionById(id).switchIfEmpty(
+        Mono.error(new BookNotFoundException("Book not found with id: " + id)));
+  }
+
+  // Resolves all ids with one $in query, results follow the request order. Books still at the version
+  // of their ifNoneMatch tag are found by a projection-only version query and are not read in full
+  public Mono<List<BatchLookupItem>> getBooks(BatchLookupRequest request) {
+    if (request.ids().size() > paginationProperties.maxBatchSize()) {
+      return Mono.error(new InvalidRequestException(
+          "At most " + paginationProperties.maxBatchSize() + " ids can be requested at once"));
+    }
+    Set<UUID> ids = new LinkedHashSet<>(request.ids());
+
+    return Mono.defer(() -> {
+          Map<UUID, Long> known = knownVersions(request.ifNoneMatch(), ids);
+          if (known.isEmpty()) {
+            return Mono.just(Map.<UUID, Long>of());
           }
-          return executeInTransaction(session ->
-              bookDao.saveWithSession(entity, session)
-                  .flatMap(savedBook ->
-                      sendBookEventWithTransaction(savedBook, "BOOK_CREATED", session)
-                          .thenReturn(savedBook)
-                  )
+          return bookDao.findVersionsByIds(known.keySet())
+              .filter(book -> known.get(book.getId()).equals(book.getVersion()))
+              .collectMap(Book::getId, Book::getVersion);
+        })
+        .flatMap(unchanged -> {
+          Set<UUID> changed = new LinkedHashSet<>(ids);
+          changed.removeAll(unchanged.keySet());
+          boolean projected = !toProjectedFields(request.fields()).isEmpty();
+          return readBooks(changed, request.fields())
+              .map(books -> request.ids().stream()
+                  .map(id -> {
+                    if (unchanged.containsKey(id)) {
+                      return new BatchLookupItem(id, true, true, ETags.of(id, unchanged.get(id)), null);
+                    }
+                    Book book = books.get(id);
+                    return book == null
+                        ? new BatchLookupItem(id, false, null, null, null)
+                        : new BatchLookupItem(id, true, null, ETags.of(id, book.getVersion()),
+                            new ProjectedBook(bookMapper.toDto(book), projected));
+                  })
+                  .toList());
+        });
+  }
+
+  // Projections always include the version, the item ETag is derived from it
+  private Mono<Map<UUID, Book>> readBooks(Set<UUID> ids, List<String> requestedFields) {
+    if (ids.isEmpty()) {
+      return Mono.just(Map.of());
+    }
+    List<String> fields = toProjectedFields(requestedFields);
+    if (fields.isEmpty()) {
+      return bookCache.getAll(ids, missing -> bookDao.findByIds(missing, fields).collectMap(Book::getId));
+    }
+    if (!fields.contains("version")) {
+      fields.add("version");
+    }
+    return bookDao.findByIds(ids, fields).collectMap(Book::getId);
+  }
+
+  private Map<UUID, Long> knownVersions(List<String> ifNoneMatch, Set<UUID> ids) {
+    if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+      return Map.of();
+    }
+    Map<UUID, Long> known = new HashMap<>();
+    for (String etag : ifNoneMatch) {
+      ETags.Tag tag = ETags.parse(etag);
+      if (ids.contains(tag.id())) {
+        known.put(tag.id(), tag.version());
+      }
+    }
+    return known;
+  }
+
+  public Mono<BookDto> saveBook(Mono<BookDto> bookDtoMono) {
+    return saveBook(bookDtoMono, null);
+  }
+
+  // With an Idempotency-Key the key is claimed first in the book's transaction: a retry replays the
+  // stored result without touching books or the outbox, a concurrent duplicate loses the claim,
+  // rolls back and replays once the winner has committed
+  public Mono<BookDto> saveBook(Mono<BookDto> bookDtoMono, String idempotencyKey) {
+    if (idempotencyKey == null) {
+      return validate(bookDtoMono).flatMap(bookDto -> createBook(bookMapper.toEntity(bookDto), null, null))
+          .map(bookMapper::toDto);
+    }
+    if (idempotencyKey.isBlank() || idempotencyKey.length() > idempotencyProperties.maxKeyLength()) {
+      return Mono.error(new InvalidRequestException(
+          "Idempotency-Key must be 1 to " + idempotencyProperties.maxKeyLength() + " characters"));
+    }
+    return validate(bookDtoMono).flatMap(bookDto -> {
+          String fingerprint = fingerprint(bookDto);
+          return Mono.defer(() -> idempotencyDao.findByKey(idempotencyKey)
+                  .flatMap(record -> replay(record, fingerprint))
+                  .switchIfEmpty(Mono.defer(() ->
+                      createBook(bookMapper.toEntity(bookDto), idempotencyKey, fingerprint))))
+              .retryWhen(Retry.backoff(idempotencyProperties.maxRetries(), idempotencyProperties.retryBackoff())
+                  .filter(DuplicateRequestException.class::isInstance)
+                  .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+        })
+        .map(bookMapper::toDto);
+  }
+
+  private Mono<Book> createBook(Book entity, String idempotencyKey, String fingerprint) {
+    if (entity.getId() == null) {
+      entity.setId(UUID.randomUUID());
+    }
+    // A new book always starts at version 0
+    entity.setVersion(0L);
+    BookPricing.apply(entity, Instant.now());
+    // Claiming a key adds a third document, so it always needs the transaction
+    TransactionalOperation<Book> operation = session -> {
+      Mono<IdempotencyRecord> claim = idempotencyKey == null
+          ? Mono.empty()
+          : idempotencyDao.saveWithSession(IdempotencyRecord.builder()
+              .key(idempotencyKey)
+              .fingerprint(fingerprint)
+              .book(entity)
+              .createdAt(Instant.now())
+              .build(), session);
+      return claim.then(bookDao.saveWithSession(entity, session))
+          .flatMap(savedBook ->
+              saveBookEventWithSession(savedBook, "BOOK_CREATED", session)
+                  .thenReturn(savedBook)
           );
+    };
+    return (idempotencyKey == null ? executeWrite(operation) : executeInTransaction(operation))
+        .flatMap(savedBook -> recordCatalogStats(CatalogStatsDeltas.between(null, savedBook)).thenReturn(savedBook));
+  }
+
+  private Mono<Book> replay(IdempotencyRecord record, String fingerprint) {
+    if (!record.getFingerprint().equals(fingerprint)) {
+      return Mono.error(new InvalidRequestException(
+          "Idempotency-Key " + record.getKey() + " was already used with a different request body"));
+    }
+    return Mono.just(record.getBook());
+  }
+
+  // NDJSON lines are decoded one by one, a malformed line is reported like a book that fails validation
+  // instead of ending the stream
+  public Flux<BulkItemResult> bulkSaveBooks(Flux<String> lines) {
+    return lines.filter(line -> !line.isBlank())
+        .publishOn(offloadScheduler)
+        .index()
+        .map(indexed -> toBulkItem(indexed.getT1(), indexed.getT2()))
+        .buffer(bulkProperties.chunkSize())
+        .flatMapSequential(this::writeBulkChunk, bulkProperties.concurrency())
+        .flatMapIterable(results -> results);
+  }
+
+  // expectedVersion comes from If-Match or the request body, without it the update is retried
+  // against the current version until it wins or maxRetries is exhausted
+  public Mono<BookDto> updateBook(Mono<BookDto> bookDtoMono, UUID id, Long expectedVersion) {
+    return validate(bookDtoMono).map(bookMapper::toEntity)
+        .flatMap(updated -> {
+          updated.setId(id);
+          BookPricing.apply(updated, Instant.now());
+          Long version = expectedVersion != null ? expectedVersion : updated.getVersion();
+          if (version != null) {
+            return currentBook(id, version).flatMap(current -> applyChanges(current, updated));
+          }
+          return Mono.defer(() -> currentBook(id, null).flatMap(current -> applyChanges(current, updated)))
+              // The cached copy may be behind, the retry reads the stored document
+              .doOnError(OptimisticLockingFailureException.class, ex -> bookCache.invalidate(id))
+              .retryWhen(Retry.backoff(updateProperties.maxRetries(), updateProperties.retryBackoff())
+                  .filter(OptimisticLockingFailureException.class::isInstance)
+                  .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
         })
+        .doOnNext(bookCache::put)
         .map(bookMapper::toDto);
   }
 
-  public Mono<BookDto> updateBook(Mono<BookDto> bookDtoMono, UUID id) {
-    return bookDao.findById(id)
+  // The diff base: the cached copy when it is at the expected version, otherwise the stored document.
+  // A stale base is caught by the version filter of the update
+  private Mono<Book> currentBook(UUID id, Long expectedVersion) {
+    return bookCache.get(id, bookDao::findById)
+        .flatMap(cached -> expectedVersion == null || expectedVersion.equals(cached.getVersion())
+            ? Mono.just(cached)
+            : bookDao.findById(id).doOnNext(bookCache::put))
         .switchIfEmpty(Mono.error(new BookNotFoundException("Book not found with id: " + id)))
-        .flatMap(existing ->
-            bookDtoMono.map(bookMapper::toEntity)
-                .doOnNext(e -> e.setId(id))
-                .flatMap(updated ->
-                    executeInTransaction(session ->
-                        bookDao.updateWithSession(id, existing.getVersion(), updated, session)
-                            .flatMap(updatedBook ->
-                                sendBookEventWithTransaction(updatedBook, "BOOK_UPDATED", session)
-                                    .thenReturn(updatedBook)
-                            )
-                    )
-                )
+        .flatMap(current -> {
+          if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            metrics.optimisticLockConflict();
+            return Mono.error(new OptimisticLockingFailureException(
+                "Book " + id + " was modified concurrently, current version is " + current.getVersion()));
+          }
+          return Mono.just(current);
+        });
+  }
+
+  // Only the changed fields are written and published, an update that changes nothing
+  // returns the current book without a transaction or an event. current may be a cached copy, so a
+  // version-only lookup confirms it before the write is skipped
+  private Mono<Book> applyChanges(Book current, Book updated) {
+    Set<BookField> changedFields = BookField.diff(current, updated);
+    if (changedFields.isEmpty()) {
+      return bookDao.findVersionById(current.getId())
+          .switchIfEmpty(Mono.error(new BookNotFoundException("Book not found with id: " + current.getId())))
+          .flatMap(version -> {
+            if (!version.equals(current.getVersion())) {
+              metrics.optimisticLockConflict();
+              return Mono.error(new OptimisticLockingFailureException(
+                  "Book " + current.getId() + " was modified concurrently, current version is " + version));
+            }
+            return Mono.just(current);
+          });
+    }
+    return executeWrite(session ->
+        bookDao.updateWithSession(current.getId(), current.getVersion(), updated, changedFields, session)
+            .flatMap(updatedBook ->
+                saveBookEventWithSession(buildBookUpdatedEvent(updatedBook, changedFields), session)
+                    .thenReturn(updatedBook)
+            )
         )
-        .map(bookMapper::toDto);
+        .flatMap(updatedBook ->
+            recordCatalogStats(CatalogStatsDeltas.between(current, updatedBook)).thenReturn(updatedBook));
+  }
+
+  // Re-prices a book whose promo window opened or closed, for PriceSweeper. Losing to a concurrent
+  // write or delete is fine, that write priced the book itself
+  Mono<Book> reprice(Book current, Instant now) {
+    Book repriced = current.toBuilder().build();
+    BookPricing.apply(repriced, now);
+    return applyChanges(current, repriced)
+        .doOnNext(bookCache::put)
+        .onErrorResume(ex -> ex instanceof OptimisticLockingFailureException || ex instanceof BookNotFoundException,
+            ex -> {
+              bookCache.invalidate(current.getId());
+              return Mono.empty();
+            });
   }
 
   public Mono<Void> deleteBook(UUID id) {
-    return bookDao.findById(id)
-        .switchIfEmpty(Mono.error(new BookNotFoundException("Book not found with id: " + id)))
-        .flatMap(existing ->
-            executeInTransaction(session ->
-                bookDao.deleteWithSession(id, session)
-                    .flatMap(deleted -> {
-                      if (!deleted) {
-                        return Mono.error(new RuntimeException("Failed to delete book " + id));
-                      }
-                      return sendBookEventWithTransaction(existing, "BOOK_DELETED", session);
-                    })
-            )
-        );
+    return executeWrite(session ->
+            bookDao.findAndDeleteWithSession(id, session)
+                .switchIfEmpty(Mono.error(new BookNotFoundException("Book not found with id: " + id)))
+                .flatMap(deleted -> saveBookEventWithSession(deleted, "BOOK_DELETED", session)
+                    .thenReturn(deleted))
+        )
+        .doOnSuccess(ignored -> bookCache.invalidate(id))
+        .flatMap(deleted -> recordCatalogStats(CatalogStatsDeltas.between(deleted, null)));
+  }
+
+  // Bean validation, and the mapping and pricing that follow it, run on the offload scheduler rather
+  // than the event loop that decoded the body
+  private Mono<BookDto> validate(Mono<BookDto> bookDtoMono) {
+    return bookDtoMono.publishOn(offloadScheduler)
+        .handle((bookDto, sink) -> {
+          Set<ConstraintViolation<BookDto>> violations = validator.validate(bookDto);
+          if (violations.isEmpty()) {
+            sink.next(bookDto);
+            return;
+          }
+          sink.error(new InvalidBookException(violations.stream()
+              .collect(Collectors.toMap(violation -> violation.getPropertyPath().toString(),
+                  ConstraintViolation::getMessage, (first, second) -> first))));
+        });
+  }
+
+  private BulkItem toBulkItem(long index, String line) {
+    BookDto bookDto;
+    try {
+      bookDto = objectMapper.readValue(line, BookDto.class);
+    } catch (JsonProcessingException ex) {
+      return new BulkItem(index, null,
+          new BulkItemResult(index, null, BulkItemResult.Outcome.INVALID, "Malformed JSON: " + ex.getOriginalMessage()));
+    }
+    if (bookDto == null) {
+      return new BulkItem(index, null,
+          new BulkItemResult(index, null, BulkItemResult.Outcome.INVALID, "Malformed JSON: expected an object"));
+    }
+    Set<ConstraintViolation<BookDto>> violations = validator.validate(bookDto);
+    if (!violations.isEmpty()) {
+      String error = violations.stream()
+          .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+          .sorted()
+          .collect(Collectors.joining("; "));
+      return new BulkItem(index, null, new BulkItemResult(index, bookDto.id(), BulkItemResult.Outcome.INVALID, error));
+    }
+    Book book = bookMapper.toEntity(bookDto);
+    BookPricing.apply(book, Instant.now());
+    return new BulkItem(index, book, null);
+  }
+
+  private Mono<List<BulkItemResult>> writeBulkChunk(List<BulkItem> items) {
+    List<Book> books = items.stream().map(BulkItem::book).filter(Objects::nonNull).toList();
+    if (books.isEmpty()) {
+      return Mono.just(items.stream().map(BulkItem::result).toList());
+    }
+
+    // Ids are assigned here rather than by the insert, an attempt retried after an aborted transaction
+    // inserts the same books
+    boolean[] inserts = new boolean[books.size()];
+    Long[] expectedVersions = new Long[books.size()];
+    for (int i = 0; i < books.size(); i++) {
+      Book book = books.get(i);
+      inserts[i] = book.getId() == null;
+      expectedVersions[i] = book.getVersion();
+      if (inserts[i]) {
+        book.setId(UUID.randomUUID());
+        book.setVersion(0L);
+      }
+    }
+    BulkChunk chunk = new BulkChunk(books, inserts, expectedVersions,
+        new BulkItemResult.Outcome[books.size()], new HashMap<>());
+
+    return writeBulkBooks(chunk, IntStream.range(0, books.size()).boxed().toList())
+        .then(Mono.defer(() -> {
+          List<BulkItemResult> results = new ArrayList<>(items.size());
+          // Only inserts count here, the book an update replaced is unknown and CatalogStatsReconciler
+          // corrects the counters for it
+          Map<String, CatalogStat> statsDeltas = new HashMap<>();
+          int position = 0;
+          for (BulkItem item : items) {
+            if (item.book() == null) {
+              results.add(item.result());
+              continue;
+            }
+            Book book = item.book();
+            BulkItemResult.Outcome outcome = chunk.outcomes()[position];
+            if (outcome != BulkItemResult.Outcome.FAILED) {
+              book.setVersion(storedVersion(chunk, position));
+            }
+            results.add(new BulkItemResult(item.index(), book.getId(), outcome, chunk.errors().get(position)));
+            position++;
+
+            if (outcome == BulkItemResult.Outcome.UPDATED) {
+              bookCache.invalidate(book.getId());
+            }
+            if (outcome == BulkItemResult.Outcome.CREATED) {
+              CatalogStatsDeltas.add(statsDeltas, book, 1);
+            }
+          }
+          return recordCatalogStats(CatalogStatsDeltas.nonZero(statsDeltas)).thenReturn(results);
+        }));
+  }
+
+  // The chunk's books and their outbox events commit together. A write error aborts the whole transaction,
+  // so the attempt is repeated without the books that failed until one commits. Without a transaction the
+  // other books are written and only the failed ones are reported
+  private Mono<Void> writeBulkBooks(BulkChunk chunk, List<Integer> positions) {
+    if (positions.isEmpty()) {
+      return Mono.empty();
+    }
+    List<Book> books = positions.stream().map(chunk.books()::get).toList();
+    boolean[] inserts = new boolean[positions.size()];
+    for (int i = 0; i < positions.size(); i++) {
+      inserts[i] = chunk.inserts()[positions.get(i)];
+    }
+    boolean transactional = writesInTransaction();
+
+    return executeWrite(session -> bookDao.bulkWriteWithSession(books, inserts, session)
+            .map(BulkWriteResult::getUpserts)
+            .onErrorResume(MongoBulkWriteException.class, ex -> {
+              if (transactional) {
+                return Mono.error(ex);
+              }
+              failBulkBooks(chunk, positions, ex);
+              return Mono.just(ex.getWriteResult().getUpserts());
+            })
+            .flatMap(upserts -> {
+              recordBulkOutcomes(chunk, positions, upserts);
+              // The transaction commits on a value, not on an empty completion
+              return saveBulkEventsWithSession(chunk, positions, session).thenReturn(positions);
+            }))
+        .then()
+        // Nothing of an attempt that lost a write conflict was written, it is repeated as a whole
+        .retryWhen(Retry.backoff(updateProperties.maxRetries(), updateProperties.retryBackoff())
+            .filter(OptimisticLockingFailureException.class::isInstance)
+            .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+        .onErrorResume(MongoBulkWriteException.class, ex -> {
+          if (ex.getWriteErrors().isEmpty()) {
+            return Mono.error(ex);
+          }
+          failBulkBooks(chunk, positions, ex);
+          return writeBulkBooks(chunk, positions.stream()
+              .filter(position -> !chunk.errors().containsKey(position))
+              .toList());
+        })
+        .onErrorResume(OptimisticLockingFailureException.class, ex -> {
+          positions.forEach(position -> {
+            chunk.outcomes()[position] = BulkItemResult.Outcome.FAILED;
+            chunk.errors().put(position, ex.getMessage());
+          });
+          return Mono.empty();
+        });
+  }
+
+  // Error indexes refer to the attempt, positions maps them back to the chunk
+  private void failBulkBooks(BulkChunk chunk, List<Integer> positions, MongoBulkWriteException ex) {
+    for (BulkWriteError error : ex.getWriteErrors()) {
+      int position = positions.get(error.getIndex());
+      Long expectedVersion = chunk.expectedVersions()[position];
+      chunk.outcomes()[position] = BulkItemResult.Outcome.FAILED;
+      chunk.errors().put(position, error.getCode() == DUPLICATE_KEY && expectedVersion != null
+          ? "Book " + chunk.books().get(position).getId() + " was modified concurrently, expected version "
+              + expectedVersion
+          : error.getMessage());
+    }
+  }
+
+  private void recordBulkOutcomes(BulkChunk chunk, List<Integer> positions, List<BulkWriteUpsert> upserts) {
+    Set<Integer> upserted = upserts.stream()
+        .map(BulkWriteUpsert::getIndex)
+        .collect(Collectors.toSet());
+    for (int i = 0; i < positions.size(); i++) {
+      int position = positions.get(i);
+      if (chunk.errors().containsKey(position)) {
+        continue;
+      }
+      chunk.outcomes()[position] = chunk.inserts()[position] || upserted.contains(i)
+          ? BulkItemResult.Outcome.CREATED
+          : BulkItemResult.Outcome.UPDATED;
+    }
+  }
+
+  // One outbox insert per attempt, the relay publishes the events in batches. The books themselves keep
+  // the client's version until the chunk is done, a repeated attempt filters on it again
+  private Mono<Void> saveBulkEventsWithSession(BulkChunk chunk, List<Integer> positions, ClientSession session) {
+    if (!writesOutbox()) {
+      return Mono.empty();
+    }
+    List<OutboxEvent> events = new ArrayList<>(positions.size());
+    for (int position : positions) {
+      BulkItemResult.Outcome outcome = chunk.outcomes()[position];
+      if (outcome == BulkItemResult.Outcome.FAILED) {
+        continue;
+      }
+      Book stored = chunk.books().get(position).toBuilder().version(storedVersion(chunk, position)).build();
+      BookEvent event = buildBookEvent(stored,
+          outcome == BulkItemResult.Outcome.CREATED ? "BOOK_CREATED" : "BOOK_UPDATED");
+      events.add(OutboxEvent.builder()
+          .key(stored.getId().toString())
+          .event(event)
+          .createdAt(event.getOccurredAt())
+          .build());
+    }
+    return outboxDao.saveAllWithSession(events, session);
+  }
+
+  // 0 for a new document, one past the client's for a versioned update. Unknown for an unversioned one,
+  // its event then carries none and listeners drop their copies
+  private Long storedVersion(BulkChunk chunk, int position) {
+    if (chunk.outcomes()[position] == BulkItemResult.Outcome.CREATED) {
+      return 0L;
+    }
+    Long expectedVersion = chunk.expectedVersions()[position];
+    return expectedVersion == null ? null : expectedVersion + 1;
+  }
+
+  // In SINGLE_DOCUMENT mode the session carries no transaction: no commit round trip. Only with the
+  // change stream as the event source is a single-book write one document, an outbox insert next to
+  // it always commits with it in a transaction
+  private <T> Mono<T> executeWrite(TransactionalOperation<T> operation) {
+    if (writesInTransaction()) {
+      return executeInTransaction(operation);
+    }
+    return metrics.timeTransactionPhase("startSession", bookDao.startSession())
+        .flatMap(session -> {
+          metrics.sessionOpened();
+          return metrics.timeTransactionPhase("operation", operation.execute(session))
+              .onErrorMap(this::translateTransactionError)
+              .doFinally(signal -> {
+                session.close();
+                metrics.sessionClosed();
+              });
+        });
   }
 
   private <T> Mono<T> executeInTransaction(TransactionalOperation<T> operation) {
-    return bookDao.startSession()
+    return metrics.timeTransactionPhase("startSession", bookDao.startSession())
         .flatMap(session -> {
+          metrics.sessionOpened();
           // Start transaction
           session.startTransaction();
 
-          return operation.execute(session)
+          return metrics.timeTransactionPhase("operation", operation.execute(session))
               .flatMap(result ->
                   // Commit transaction if successful
-                  Mono.from(session.commitTransaction())
+                  metrics.timeTransactionPhase("commit", Mono.from(session.commitTransaction()))
                       .thenReturn(result)
               )
-              .onErrorResume(throwable ->
-                  // Rollback transaction on error
-                  Mono.from(session.abortTransaction())
-                      .then(Mono.error(new RuntimeException("Transaction failed: " + throwable.getMessage(), throwable)))
-              )
+              .onErrorResume(throwable -> {
+                // Rollback transaction on error
+                metrics.transactionAborted();
+                return metrics.timeTransactionPhase("abort", Mono.from(session.abortTransaction()))
+                    .then(Mono.error(translateTransactionError(throwable)));
+              })
               .doFinally(signal -> {
                 // Always close the session
                 session.close();
+                metrics.sessionClosed();
               });
         });
   }
 
-  private Mono<Void> sendBookEventWithTransaction(Book book, String eventType, ClientSession session) {
-    BookEvent event = buildBookEvent(book, eventType);
+  // Domain errors keep their type so they map to 404/409, a write conflict means a concurrent update
+  private Throwable translateTransactionError(Throwable throwable) {
+    if (throwable instanceof OptimisticLockingFailureException) {
+      metrics.optimisticLockConflict();
+      return throwable;
+    }
+    // A bulk write error keeps its per-book errors, the chunk is retried without those books
+    if (throwable instanceof BookNotFoundException || throwable instanceof DuplicateRequestException
+        || throwable instanceof MongoBulkWriteException) {
+      return throwable;
+    }
+    if (throwable instanceof MongoException mongoException && mongoException.getCode() == WRITE_CONFLICT) {
+      metrics.optimisticLockConflict();
+      return new OptimisticLockingFailureException("Concurrent update conflict: " + throwable.getMessage());
+    }
+    return new RuntimeException("Transaction failed: " + throwable.getMessage(), throwable);
+  }
 
-    return kafkaSender.send(Mono.just(
-            SenderRecord.create(
-                "book-topic",
-                null,
-                null,
-                event.getPayload().getBookId().toString(),
-                event,
-                null
-            )
-        ))
-        .timeout(Duration.ofSeconds(10))
-        .onErrorResume(ex ->
-            // This will trigger transaction rollback
-            Mono.error(new RuntimeException("Kafka send failed: " + ex.getMessage(), ex))
-        )
-        .then();
+  // The event is written to the outbox in the same transaction, OutboxRelay publishes it to Kafka.
+  // With the change stream as the event source the book write alone is the event
+  private Mono<Void> saveBookEventWithSession(Book book, String eventType, ClientSession session) {
+    if (!writesOutbox()) {
+      return Mono.empty();
+    }
+    return saveBookEventWithSession(buildBookEvent(book, eventType), session);
+  }
+
+  private Mono<Void> saveBookEventWithSession(BookEvent event, ClientSession session) {
+    if (!writesOutbox()) {
+      return Mono.empty();
+    }
+    OutboxEvent outboxEvent = OutboxEvent.builder()
+        .key(event.getPayload().getBookId().toString())
+        .event(event)
+        .createdAt(event.getOccurredAt())
+        .build();
+
+    return outboxDao.saveWithSession(outboxEvent, session).then();
+  }
+
+  private boolean writesInTransaction() {
+    return writeProperties.mode() == WriteProperties.WriteMode.TRANSACTIONAL || writesOutbox();
+  }
+
+  private boolean writesOutbox() {
+    return eventsProperties.source() == EventsProperties.Source.OUTBOX;
+  }
+
+  // Package-private for the benchmarks module and ChangeStreamRelay
+  BookEvent buildBookEvent(Book book, String eventType) {
+    return buildBookEvent(book, eventType, ALL_FIELDS, null);
+  }
+
+  // Delta BOOK_UPDATED event, only the changed fields carry values. Promos reach consumers through
+  // effectivePrice, so promo changes are listed only when they moved it
+  BookEvent buildBookUpdatedEvent(Book book, Set<BookField> changedFields) {
+    List<String> fieldNames = changedFields.stream()
+        .filter(field -> !UNPUBLISHED_FIELDS.contains(field))
+        .map(BookField::fieldName)
+        .toList();
+    return buildBookEvent(book, "BOOK_UPDATED", changedFields, fieldNames);
   }
 
-  private BookEvent buildBookEvent(Book book, String eventType) {
+  private BookEvent buildBookEvent(Book book, String eventType, Set<BookField> fields, List<String> changedFields) {
+    // occurredAt and the payload timestamp are the same instant, one clock read per event
+    Instant now = Instant.now();
     BookEvent event = new BookEvent();
     event.setEventId(UUID.randomUUID());
     event.setEventType(eventType);
-    event.setOccurredAt(Instant.now());
+    event.setOccurredAt(now);
 
     BookEvent.Payload payload = new BookEvent.Payload();
     payload.setBookId(book.getId());
-    payload.setTitle(book.getTitle());
-    payload.setAuthors(book.getAuthors());
-    payload.setDescription(book.getDescription());
-    payload.setCoverImage(book.getCoverImage());
-    payload.setCategory(book.getCategory() != null ? book.getCategory().toString() : null);
-    payload.setPublisher(book.getPublisher());
-    payload.setPublishedYear(book.getPublishedYear());
-    payload.setLanguage(book.getLanguage() != null ? book.getLanguage().toString() : null);
-    payload.setPageCount(book.getPageCount());
-    payload.setPrice(book.getPrice());
-    payload.setDiscount(book.getDiscount());
-    payload.setStatus(book.getStatus() != null ? book.getStatus().toString() : null);
-    payload.setTimestamp(Instant.now());
+    payload.setVersion(book.getVersion());
+    payload.setChangedFields(changedFields);
+    for (BookField field : fields) {
+      switch (field) {
+        case TITLE -> payload.setTitle(book.getTitle());
+        case AUTHORS -> payload.setAuthors(book.getAuthors());
+        case DESCRIPTION -> payload.setDescription(book.getDescription());
+        case COVER_IMAGE -> payload.setCoverImage(book.getCoverImage());
+        case CATEGORY -> payload.setCategory(book.getCategory() != null ? book.getCategory().toString() : null);
+        case PUBLISHER -> payload.setPublisher(book.getPublisher());
+        case PUBLISHED_YEAR -> payload.setPublishedYear(book.getPublishedYear());
+        case LANGUAGE -> payload.setLanguage(book.getLanguage() != null ? book.getLanguage().toString() : null);
+        case PAGE_COUNT -> payload.setPageCount(book.getPageCount());
+        case PRICE -> payload.setPrice(book.getPrice());
+        case DISCOUNT -> payload.setDiscount(book.getDiscount());
+        case STATUS -> payload.setStatus(book.getStatus() != null ? book.getStatus().toString() : null);
+        case EFFECTIVE_PRICE -> payload.setEffectivePrice(book.getEffectivePrice());
+        case PROMOS, NEXT_PRICE_CHANGE_AT -> {
+        }
+      }
+    }
+    payload.setTimestamp(now);
 
     event.setPayload(payload);
 
     return event;
   }
 
+  // After the book write has succeeded. A failed increment does not fail the write, the counters stay
+  // off until CatalogStatsReconciler corrects them
+  private Mono<Void> recordCatalogStats(Collection<CatalogStat> deltas) {
+    return catalogStatsDao.applyDeltas(deltas)
+        .onErrorResume(ex -> {
+          metrics.catalogStatsDropped();
+          return Mono.empty();
+        });
+  }
+
+  private <T> List<StatsBucket<T>> toStatsBuckets(List<CatalogStat> stats, Function<String, T> parse) {
+    if (stats == null) {
+      return List.of();
+    }
+    return stats.stream()
+        .map(stat -> new StatsBucket<>(parse.apply(stat.getValue()), stat.getCount(), averageEffectivePrice(stat)))
+        .toList();
+  }
+
+  private static BigDecimal averageEffectivePrice(CatalogStat stat) {
+    if (stat.getPricedCount() == null || stat.getPricedCount() <= 0 || stat.getPriceSum() == null) {
+      return null;
+    }
+    return stat.getPriceSum().divide(BigDecimal.valueOf(stat.getPricedCount()), 2, RoundingMode.HALF_UP);
+  }
+
+  // Buckets of books without the field are left out
+  private <T> List<FacetCount<T>> toFacetCounts(List<BookSearchResult.Count> counts, Function<String, T> parse) {
+    return counts.stream()
+        .filter(count -> count.getValue() != null)
+        .map(count -> new FacetCount<>(parse.apply(count.getValue()), count.getCount()))
+        .toList();
+  }
+
+  private static String fingerprint(BookDto bookDto) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(bookDto.toString().getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private List<String> toProjectedFields(List<String> fields) {
+    if (fields == null || fields.isEmpty()) {
+      return List.of();
+    }
+    List<String> projected = new ArrayList<>();
+    for (String field : fields) {
+      if (!BOOK_DTO_FIELDS.contains(field)) {
+        throw new InvalidRequestException("Unknown field: " + field + ". Allowed fields: " + BOOK_DTO_FIELDS);
+      }
+      if (!"id".equals(field)) {
+        projected.add(field);
+      }
+    }
+    return projected;
+  }
+
+  private String encodeCursor(UUID id) {
+    ByteBuffer buffer = ByteBuffer.allocate(16)
+        .putLong(id.getMostSignificantBits())
+        .putLong(id.getLeastSignificantBits());
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+  }
+
+  // Price cursors are the id followed by the price digits
+  private String encodePriceCursor(BigDecimal effectivePrice, UUID id) {
+    byte[] price = effectivePrice.toPlainString().getBytes(StandardCharsets.US_ASCII);
+    ByteBuffer buffer = ByteBuffer.allocate(16 + price.length)
+        .putLong(id.getMostSignificantBits())
+        .putLong(id.getLeastSignificantBits())
+        .put(price);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+  }
+
+  private PriceCursor decodePriceCursor(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    try {
+      byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+      if (bytes.length <= 16) {
+        throw new InvalidRequestException("Invalid cursor: " + cursor);
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      UUID id = new UUID(buffer.getLong(), buffer.getLong());
+      return new PriceCursor(new BigDecimal(new String(bytes, 16, bytes.length - 16, StandardCharsets.US_ASCII)), id);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidRequestException("Invalid cursor: " + cursor, e);
+    }
+  }
+
+  private UUID decodeCursor(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor));
+      if (buffer.remaining() != 16) {
+        throw new InvalidRequestException("Invalid cursor: " + cursor);
+      }
+      return new UUID(buffer.getLong(), buffer.getLong());
+    } catch (IllegalArgumentException e) {
+      throw new InvalidRequestException("Invalid cursor: " + cursor, e);
+    }
+  }
+
+  private record PriceCursor(BigDecimal effectivePrice, UUID id) {}
+
+  // A parsed bulk line, either a book to write or an already decided result
+  private record BulkItem(long index, Book book, BulkItemResult result) {}
+
+  // The valid books of a chunk and what became of each, indexed by position among them
+  private record BulkChunk(List<Book> books, boolean[] inserts, Long[] expectedVersions,
+                           BulkItemResult.Outcome[] outcomes, Map<Integer, String> errors) {}
+
   // Functional interface for transactional operations
   @FunctionalInterface
   private interface TransactionalOperation<T> {
@@ -0,0 +1,86 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.config.WarmStartProperties;
+import io.kas.bookservice.repository.BookDao;
+import io.kas.bookservice.repository.ChangeStreamStateDao;
+import io.kas.bookservice.util.snapshot.CatalogSnapshotFile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+// Writes the catalog snapshot CatalogWarmStart starts from. The book-topic end offsets are taken
+// before the scan: an event below them was published after its write committed, so the scan already
+// reflects it. Documents are copied as stored, without decoding. The instances share the snapshot
+// file, the one holding the snapshot lease writes it
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class CatalogSnapshotWriter {
+
+  private static final String LEASE = "catalog-snapshot";
+
+  private final BookDao bookDao;
+  private final ChangeStreamStateDao leaseDao;
+  private final BookEventConsumer bookEventConsumer;
+  private final WarmStartProperties properties;
+
+  private final String owner = UUID.randomUUID().toString();
+
+  @Scheduled(fixedDelayString = "${book-service.warm-start.snapshot-interval}",
+      initialDelayString = "${book-service.warm-start.snapshot-interval}")
+  public Mono<Void> writeSnapshot() {
+    if (!properties.enabled() || !properties.writeSnapshots()) {
+      return Mono.empty();
+    }
+    long start = System.nanoTime();
+    return leaseDao.acquireLease(LEASE, owner, properties.snapshotLease())
+        .filter(Boolean::booleanValue)
+        .flatMap(held -> bookEventConsumer.endOffsets())
+        .flatMap(offsets -> offsets.isEmpty() ? Mono.empty() : write(offsets))
+        .doOnNext(books -> log.info("Wrote catalog snapshot of {} books in {} ms", books,
+            Duration.ofNanos(System.nanoTime() - start).toMillis()))
+        .onErrorResume(ex -> {
+          // The previous snapshot stays in place
+          log.warn("Catalog snapshot failed, will retry: {}", ex.getMessage());
+          return Mono.empty();
+        })
+        .then();
+  }
+
+  private Mono<Long> write(Map<TopicPartition, Long> offsets) {
+    return Mono.using(
+            () -> CatalogSnapshotFile.create(Path.of(properties.snapshotPath()), offsets),
+            writer -> bookDao.findAllRaw(properties.snapshotBatchSize())
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(document -> {
+                  try {
+                    writer.write(document);
+                  } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                  }
+                })
+                .then(Mono.fromCallable(() -> {
+                  writer.commit();
+                  return writer.books();
+                })),
+            writer -> {
+              try {
+                writer.close();
+              } catch (IOException e) {
+                log.warn("Could not remove the partial catalog snapshot: {}", e.getMessage());
+              }
+            })
+        .subscribeOn(Schedulers.boundedElastic());
+  }
+}
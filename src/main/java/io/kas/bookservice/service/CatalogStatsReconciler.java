@@ -0,0 +1,46 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.config.StatsProperties;
+import io.kas.bookservice.repository.BookDao;
+import io.kas.bookservice.repository.CatalogStatsDao;
+import io.kas.bookservice.util.stats.CatalogStatsDeltas;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+// Corrects drift of the catalog counters against an aggregation over the books: increments lost when
+// the counter write failed after the book write, and bulk upserts of existing books, whose previous
+// state is unknown. The counters are moved by the difference rather than overwritten, so increments
+// landing after the scan are kept. A write landing between the read of the counters and the scan may
+// be counted twice or not at all until the next run. One instance reconciles per interval, the first
+// run at startup also seeds the counters of an existing catalog
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class CatalogStatsReconciler {
+
+  private final BookDao bookDao;
+  private final CatalogStatsDao catalogStatsDao;
+  private final StatsProperties statsProperties;
+
+  @Scheduled(fixedDelayString = "${book-service.stats.reconcile-interval}")
+  public Mono<Void> reconcile() {
+    return catalogStatsDao.claimReconciliation(statsProperties.reconcileInterval().dividedBy(2))
+        .filter(claimed -> claimed)
+        .flatMap(claimed -> catalogStatsDao.findAll().collectList())
+        .flatMap(stored -> bookDao.aggregateCatalogStats()
+            .map(result -> CatalogStatsDeltas.correction(CatalogStatsDeltas.fromAggregation(result), stored)))
+        .flatMap(corrections -> {
+          if (!corrections.isEmpty()) {
+            log.info("Correcting {} drifted catalog counters", corrections.size());
+          }
+          return catalogStatsDao.applyDeltas(corrections);
+        })
+        .onErrorResume(ex -> {
+          log.warn("Catalog stats reconciliation failed, will retry: {}", ex.getMessage());
+          return Mono.empty();
+        });
+  }
+}
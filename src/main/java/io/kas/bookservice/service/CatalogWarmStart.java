@@ -0,0 +1,154 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.cache.BookCache;
+import io.kas.bookservice.config.WarmStartProperties;
+import io.kas.bookservice.util.snapshot.CatalogSnapshotFile;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.receiver.ReceiverPartition;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Starts an instance from the latest catalog snapshot instead of cold: the snapshot is loaded into
+// BookCache before BookEventConsumer starts, book-topic is then read from the snapshot's offsets and
+// the instance reports ready (health group readiness) once it has reached the end offsets seen at
+// assignment. BookCache compares versions, so events older than the snapshot change nothing
+@Slf4j
+@Component
+public class CatalogWarmStart implements HealthIndicator {
+
+  private final WarmStartProperties properties;
+  private final BookCache bookCache;
+  private final Map<TopicPartition, Long> snapshotOffsets = new ConcurrentHashMap<>();
+  // End offsets still to be reached, by partition
+  private final Map<TopicPartition, Long> catchUpTargets = new ConcurrentHashMap<>();
+  private volatile boolean assigned;
+  private volatile boolean current;
+
+  public CatalogWarmStart(WarmStartProperties properties, BookCache bookCache) {
+    this.properties = properties;
+    this.bookCache = bookCache;
+    this.current = !properties.enabled();
+  }
+
+  // Without a usable snapshot the instance starts cold and is ready at once
+  public Mono<Void> restore() {
+    if (current) {
+      return Mono.empty();
+    }
+    return Mono.fromCallable(this::load)
+        .subscribeOn(Schedulers.boundedElastic())
+        .doOnNext(header -> {
+          snapshotOffsets.putAll(header.offsets());
+          // Readiness stays down until caught up, serving from a cache behind book-topic would return
+          // books older than their last acknowledged write
+          Mono.delay(properties.catchUpTimeout()).subscribe(ignored -> {
+            if (!current) {
+              log.warn("Warm start has not caught up on book-topic after {}, still out of service: {} partitions behind",
+                  properties.catchUpTimeout(), catchUpTargets.size());
+            }
+          });
+        })
+        .onErrorResume(e -> {
+          log.warn("Catalog snapshot could not be loaded, starting cold: {}", e.getMessage());
+          bookCache.invalidateAll();
+          current = true;
+          return Mono.empty();
+        })
+        .then();
+  }
+
+  // Runs on the consumer thread on every assignment, only the first one seeks. A partition missing
+  // from the snapshot was created after it and is read from the beginning
+  public void onAssigned(Collection<ReceiverPartition> partitions) {
+    if (current || assigned) {
+      return;
+    }
+    for (ReceiverPartition partition : partitions) {
+      TopicPartition topicPartition = partition.topicPartition();
+      Long offset = snapshotOffsets.remove(topicPartition);
+      Long beginningOffset = partition.beginningOffset();
+      if (offset == null) {
+        partition.seekToBeginning();
+      } else if (beginningOffset != null && offset < beginningOffset) {
+        log.warn("{} no longer holds snapshot offset {}, starting cold", topicPartition, offset);
+        bookCache.invalidateAll();
+        current = true;
+        return;
+      } else {
+        partition.seek(offset);
+      }
+      Long endOffset = partition.endOffset();
+      if (endOffset != null && partition.position() < endOffset) {
+        catchUpTargets.put(topicPartition, endOffset);
+      }
+    }
+    assigned = true;
+    checkCaughtUp();
+  }
+
+  public void onApplied(TopicPartition topicPartition, long offset) {
+    if (current) {
+      return;
+    }
+    Long target = catchUpTargets.get(topicPartition);
+    if (target != null && offset + 1 >= target) {
+      catchUpTargets.remove(topicPartition);
+      checkCaughtUp();
+    }
+  }
+
+  @Override
+  public Health health() {
+    if (current) {
+      return Health.up().build();
+    }
+    return Health.outOfService()
+        .withDetail("assigned", assigned)
+        .withDetail("partitionsBehind", catchUpTargets.size())
+        .build();
+  }
+
+  private void checkCaughtUp() {
+    if (assigned && catchUpTargets.isEmpty() && !current) {
+      current = true;
+      log.info("Warm start caught up on book-topic");
+    }
+  }
+
+  private CatalogSnapshotFile.Header load() throws Exception {
+    Path path = Path.of(properties.snapshotPath());
+    if (!Files.exists(path)) {
+      log.info("No catalog snapshot at {}, starting cold", path);
+      current = true;
+      return null;
+    }
+    Instant modified = Files.getLastModifiedTime(path).toInstant();
+    if (modified.isBefore(Instant.now().minus(properties.maxSnapshotAge()))) {
+      log.info("Catalog snapshot at {} is from {}, older than {}, starting cold", path, modified,
+          properties.maxSnapshotAge());
+      current = true;
+      return null;
+    }
+    long start = System.nanoTime();
+    long[] books = new long[1];
+    CatalogSnapshotFile.Header header = CatalogSnapshotFile.read(path, (id, version, document, length, createdAt) -> {
+      bookCache.preload(id, version, document, length, createdAt);
+      books[0]++;
+    });
+    log.info("Loaded {} books from the catalog snapshot of {} in {} ms", books[0], header.createdAt(),
+        Duration.ofNanos(System.nanoTime() - start).toMillis());
+    return header;
+  }
+}
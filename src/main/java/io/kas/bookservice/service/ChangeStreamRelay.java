@@ -0,0 +1,182 @@
+package io.kas.bookservice.service;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import io.kas.bookservice.config.EventsProperties;
+import io.kas.bookservice.config.MongoConfig;
+import io.kas.bookservice.config.OutboxProperties;
+import io.kas.bookservice.dto.events.BookEvent;
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.model.BookField;
+import io.kas.bookservice.repository.BookDao;
+import io.kas.bookservice.repository.ChangeStreamStateDao;
+import io.kas.bookservice.util.metrics.BookMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+// Publishes book events from the books change stream when events.source is change-stream. The
+// resume token is saved only after Kafka acknowledged the batch, so a restart resumes after the
+// last published change. A crash between the two republishes that batch, with the same eventIds
+// because they are derived from the resume tokens, so consumers dedupe them like outbox retries.
+// Change streams need a replica set, and one instance at a time holds the lease and publishes
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class ChangeStreamRelay {
+
+  private static final String STREAM = "books";
+  private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+  private final BookDao bookDao;
+  private final ChangeStreamStateDao stateDao;
+  private final BookService bookService;
+  private final BookEventPublisher publisher;
+  private final EventsProperties eventsProperties;
+  private final OutboxProperties outboxProperties;
+  private final BookMetrics metrics;
+
+  private final String owner = UUID.randomUUID().toString();
+
+  private Disposable subscription;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (eventsProperties.source() != EventsProperties.Source.CHANGE_STREAM) {
+      return;
+    }
+    EventsProperties.ChangeStream properties = eventsProperties.changeStream();
+    // Renewing the lease keeps the relay running, losing it cancels the relay before another
+    // instance can take over
+    subscription = Flux.interval(Duration.ZERO, properties.leaseRenewInterval())
+        .onBackpressureDrop()
+        .concatMap(tick -> stateDao.acquireLease(STREAM, owner, properties.leaseDuration())
+            .onErrorResume(ex -> {
+              log.warn("Change stream lease renewal failed: {}", ex.getMessage());
+              return Mono.just(false);
+            }))
+        .distinctUntilChanged()
+        .doOnNext(held -> log.info(held
+            ? "Acquired the change stream lease, publishing book events"
+            : "Change stream lease is held elsewhere, standing by"))
+        .switchMap(held -> held ? relay(properties) : Flux.empty())
+        .subscribe();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (subscription != null) {
+      subscription.dispose();
+    }
+  }
+
+  // Every (re)subscription resumes after the last saved token
+  private Flux<Void> relay(EventsProperties.ChangeStream properties) {
+    return Flux.defer(() -> stateDao.findResumeToken(STREAM)
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .flatMapMany(token -> bookDao.watch(token.orElse(null), properties.batchSize())))
+        .bufferTimeout(properties.batchSize(), properties.batchTimeout(), true)
+        .concatMap(this::publishBatch)
+        .doOnError(ex -> {
+          if (ex instanceof MongoException mongoException && mongoException.getCode() == CHANGE_STREAM_HISTORY_LOST) {
+            // The oplog no longer covers the saved token, changes since then were not published
+            log.error("Change stream cannot resume, the saved token has left the oplog. Remove it from "
+                + "book_change_streams to restart from now and resync consumers: {}", ex.getMessage());
+          } else {
+            log.warn("Change stream relay failed, resuming from the last saved token: {}", ex.getMessage());
+          }
+        })
+        .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)));
+  }
+
+  // Mono.when subscribes in list order, so the batch enters the shared send in change stream order
+  private Mono<Void> publishBatch(List<ChangeStreamDocument<Book>> changes) {
+    List<Mono<Void>> sends = new ArrayList<>(changes.size());
+    for (ChangeStreamDocument<Book> change : changes) {
+      BookEvent event = toEvent(change);
+      if (event != null) {
+        sends.add(publisher.publish(outboxProperties.topic(), event.getPayload().getBookId().toString(), event));
+      }
+    }
+    BsonDocument resumeToken = changes.get(changes.size() - 1).getResumeToken();
+    return metrics.timeKafka("changeStreamBatch", Mono.when(sends).timeout(outboxProperties.sendTimeout()))
+        .then(stateDao.saveResumeToken(STREAM, owner, resumeToken))
+        .flatMap(saved -> saved
+            ? Mono.<Void>empty()
+            : Mono.error(new IllegalStateException("Change stream lease was taken over by another instance")));
+  }
+
+  private BookEvent toEvent(ChangeStreamDocument<Book> change) {
+    UUID id = change.getDocumentKey().getBinary("_id").asUuid(MongoConfig.UUID_REPRESENTATION);
+    BookEvent event = switch (change.getOperationType()) {
+      case INSERT -> bookService.buildBookEvent(change.getFullDocument(), "BOOK_CREATED");
+      case REPLACE -> change.getFullDocument() == null
+          ? null
+          : bookService.buildBookEvent(change.getFullDocument(), "BOOK_UPDATED");
+      case UPDATE -> toUpdatedEvent(change);
+      case DELETE -> bookService.buildBookEvent(Book.builder().id(id).build(), "BOOK_DELETED");
+      default -> null;
+    };
+    if (event == null) {
+      return null;
+    }
+    Instant occurredAt = change.getWallTime() != null
+        ? Instant.ofEpochMilli(change.getWallTime().getValue())
+        : Instant.ofEpochSecond(change.getClusterTime().getTime());
+    event.setEventId(UUID.nameUUIDFromBytes(change.getResumeToken().toJson().getBytes(StandardCharsets.UTF_8)));
+    event.setOccurredAt(occurredAt);
+    event.getPayload().setTimestamp(occurredAt);
+    return event;
+  }
+
+  // The changed fields come from the update description, their values and the version from the
+  // looked-up document. A document deleted in the meantime has no event, its delete follows
+  private BookEvent toUpdatedEvent(ChangeStreamDocument<Book> change) {
+    Book book = change.getFullDocument();
+    UpdateDescription description = change.getUpdateDescription();
+    if (book == null || description == null) {
+      return null;
+    }
+    Set<BookField> changedFields = EnumSet.noneOf(BookField.class);
+    if (description.getUpdatedFields() != null) {
+      description.getUpdatedFields().keySet().forEach(path -> addField(changedFields, path));
+    }
+    if (description.getRemovedFields() != null) {
+      description.getRemovedFields().forEach(path -> addField(changedFields, path));
+    }
+    if (description.getTruncatedArrays() != null) {
+      description.getTruncatedArrays().forEach(array -> addField(changedFields, array.getField()));
+    }
+    // Version only changes are not published
+    return changedFields.isEmpty() ? null : bookService.buildBookUpdatedEvent(book, changedFields);
+  }
+
+  // Array element changes are reported as dotted paths like authors.1
+  private static void addField(Set<BookField> fields, String path) {
+    int dot = path.indexOf('.');
+    BookField field = BookField.byFieldName(dot < 0 ? path : path.substring(0, dot));
+    if (field != null) {
+      fields.add(field);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.config.OutboxProperties;
+import io.kas.bookservice.model.OutboxEvent;
+import io.kas.bookservice.repository.ChangeStreamStateDao;
+import io.kas.bookservice.repository.OutboxDao;
+import io.kas.bookservice.util.metrics.BookMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+// Drains the outbox to Kafka, each key in the order its writes committed. One instance at a time holds
+// the lease and relays, so batches are neither sent twice nor interleaved. An event is deleted only after
+// the whole batch has been acknowledged, so delivery is at-least-once and consumers dedupe by eventId.
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class OutboxRelay {
+
+  private static final String LEASE = "outbox-relay";
+
+  private final OutboxDao outboxDao;
+  private final ChangeStreamStateDao leaseDao;
+  private final BookEventPublisher publisher;
+  private final OutboxProperties outboxProperties;
+  private final BookMetrics metrics;
+  private final String owner = UUID.randomUUID().toString();
+
+  @Scheduled(fixedDelayString = "${book-service.outbox.poll-interval}")
+  public Mono<Void> relay() {
+    return relayBatch()
+        .expand(relayed -> relayed >= outboxProperties.batchSize() ? relayBatch() : Mono.empty())
+        .then()
+        .onErrorResume(ex -> {
+          // Events stay in the outbox and are retried on the next poll
+          log.warn("Outbox relay failed, will retry: {}", ex.getMessage());
+          return Mono.empty();
+        });
+  }
+
+  // The lease is renewed before every batch, without it this instance stands by until the next poll.
+  // The oldest window only picks the keys, the batch is every pending event of them in sequence order
+  private Mono<Integer> relayBatch() {
+    return leaseDao.acquireLease(LEASE, owner, outboxProperties.leaseDuration())
+        .filter(Boolean::booleanValue)
+        .flatMap(leased -> outboxDao.findOldest(outboxProperties.batchSize()).collectList())
+        .filter(oldest -> !oldest.isEmpty())
+        .flatMap(oldest -> outboxDao.findPendingByKeys(oldest.stream().map(OutboxEvent::getKey).distinct().toList())
+            .collectList()
+            .flatMap(batch -> send(batch)
+                .then(outboxDao.deleteByIds(batch.stream().map(OutboxEvent::getId).toList()))
+                .thenReturn(oldest.size())))
+        .defaultIfEmpty(0);
+  }
+
+  // Mono.when subscribes in list order, so the batch enters the shared send in outbox order
+  private Mono<Void> send(List<OutboxEvent> batch) {
+    return metrics.timeKafka("relayBatch", Mono.when(batch.stream()
+            .map(event -> publisher.publish(outboxProperties.topic(), event.getKey(), event.getEvent()))
+            .toList())
+        .timeout(outboxProperties.sendTimeout()));
+  }
+}
@@ -0,0 +1,100 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.config.PricingProperties;
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.repository.BookDao;
+import io.kas.bookservice.repository.ChangeStreamStateDao;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+// Re-prices books whose promo window opened or closed since they were last written. Only books with
+// nextPriceChangeAt due are read, through its sparse index, so a sweep costs the number of promo
+// boundaries crossed rather than the catalog size. Instances sweeping at the same time collide on the
+// version check and the loser skips the book
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class PriceSweeper {
+
+  private static final String BACKFILL = "price-backfill";
+
+  private final BookDao bookDao;
+  private final BookService bookService;
+  private final ChangeStreamStateDao leaseDao;
+  private final PricingProperties pricingProperties;
+  private final String owner = UUID.randomUUID().toString();
+
+  @Scheduled(fixedDelayString = "${book-service.pricing.sweep-interval}")
+  public Mono<Void> sweep() {
+    Instant now = Instant.now();
+    return sweepBatch(now)
+        .expand(swept -> swept == pricingProperties.sweepBatchSize() ? sweepBatch(now) : Mono.empty())
+        .then()
+        .onErrorResume(ex -> {
+          // Books stay due and are picked up by the next sweep
+          log.warn("Price sweep failed, will retry: {}", ex.getMessage());
+          return Mono.empty();
+        });
+  }
+
+  // Every re-priced book moves its nextPriceChangeAt past now, so the next batch reads the following ones
+  private Mono<Integer> sweepBatch(Instant now) {
+    return bookDao.findRepricingDue(now, pricingProperties.sweepBatchSize())
+        .collectList()
+        .flatMap(due -> Flux.fromIterable(due)
+            .concatMap(book -> bookService.reprice(book, now))
+            .then(Mono.just(due.size())));
+  }
+
+  // Books written before effectivePrice was stored have none and drop out of price filters, price
+  // sorting and catalog stats until rewritten. One instance re-prices them under the backfill lease and
+  // records completion, later starts skip the pass
+  @EventListener(ApplicationReadyEvent.class)
+  public void backfill() {
+    if (!pricingProperties.backfillOnStartup()) {
+      return;
+    }
+    Instant now = Instant.now();
+    leaseDao.findCompletedAt(BACKFILL)
+        .hasElement()
+        .filter(completed -> !completed)
+        .flatMap(ignored -> backfillBatch(null, now)
+            .expand(books -> books.size() == pricingProperties.sweepBatchSize()
+                ? backfillBatch(books.get(books.size() - 1).getId(), now)
+                : Mono.empty())
+            .map(List::size)
+            .reduce(0L, Long::sum))
+        .flatMap(count -> leaseDao.markCompleted(BACKFILL, owner)
+            .filter(Boolean::booleanValue)
+            .map(completed -> count))
+        .subscribe(
+            count -> {
+              if (count > 0) {
+                log.info("Backfilled the effective price of {} books", count);
+              }
+            },
+            ex -> log.warn("Effective price backfill failed, runs again on the next start: {}", ex.getMessage()));
+  }
+
+  // The lease is renewed before every batch. Held by another instance the pass is left to it, and
+  // markCompleted finds the lease not ours
+  private Mono<List<Book>> backfillBatch(UUID afterId, Instant now) {
+    return leaseDao.acquireLease(BACKFILL, owner, pricingProperties.backfillLease())
+        .filter(Boolean::booleanValue)
+        .flatMap(leased -> bookDao.findMissingEffectivePrice(afterId, pricingProperties.sweepBatchSize())
+            .collectList())
+        .flatMap(books -> Flux.fromIterable(books)
+            .concatMap(book -> bookService.reprice(book, now))
+            .then(Mono.just(books)));
+  }
+}
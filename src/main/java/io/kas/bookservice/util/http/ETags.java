@@ -0,0 +1,71 @@
+package io.kas.bookservice.util.http;
+
+import io.kas.bookservice.exception.InvalidRequestException;
+
+import java.util.UUID;
+
+// Strong entity tags of the form "<id>-<version>"
+public final class ETags {
+
+  private ETags() {
+  }
+
+  public static String of(UUID id, long version) {
+    return "\"" + id + "-" + version + "\"";
+  }
+
+  // If-None-Match compares weakly and may list several tags, "*" matches any existing book
+  public static boolean matches(String ifNoneMatch, UUID id, long version) {
+    String current = of(id, version);
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.equals("*") || stripWeak(tag).equals(current)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Parses a tag this class produced, weak or strong
+  public static Tag parse(String etag) {
+    String value = etag == null ? "" : stripWeak(etag.trim());
+    if (value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) {
+      throw new InvalidRequestException("Invalid entity tag: " + etag);
+    }
+    value = value.substring(1, value.length() - 1);
+    int separator = value.lastIndexOf('-');
+    try {
+      return new Tag(UUID.fromString(value.substring(0, Math.max(separator, 0))),
+          Long.parseLong(value.substring(separator + 1)));
+    } catch (IllegalArgumentException e) {
+      throw new InvalidRequestException("Invalid entity tag: " + etag, e);
+    }
+  }
+
+  private static String stripWeak(String tag) {
+    return tag.startsWith("W/") ? tag.substring(2) : tag;
+  }
+
+  // Returns the version an If-Match header refers to, or null when the header is absent
+  public static Long parseVersion(String ifMatch, UUID id) {
+    if (ifMatch == null || ifMatch.isBlank()) {
+      return null;
+    }
+    String value = ifMatch.trim();
+    if (value.startsWith("W/") || value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) {
+      throw new InvalidRequestException("If-Match must be a single strong entity tag");
+    }
+    value = value.substring(1, value.length() - 1);
+    int separator = value.lastIndexOf('-');
+    if (separator < 0 || !value.substring(0, separator).equals(id.toString())) {
+      throw new InvalidRequestException("If-Match does not refer to book " + id);
+    }
+    try {
+      return Long.parseLong(value.substring(separator + 1));
+    } catch (NumberFormatException e) {
+      throw new InvalidRequestException("If-Match does not carry a valid version", e);
+    }
+  }
+
+  public record Tag(UUID id, long version) {}
+}
@@ -3,6 +3,7 @@ package io.kas.bookservice.util.mapper;
 import io.kas.bookservice.dto.BookDto;
 import io.kas.bookservice.model.Book;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 @Mapper(componentModel = "spring")
@@ -10,5 +11,9 @@ public interface BookMapper {
   BookMapper INSTANCE = Mappers.getMapper(BookMapper.class);
 
   BookDto toDto(Book book);
+
+  // Derived pricing is computed by the service, never taken from the client
+  @Mapping(target = "effectivePrice", ignore = true)
+  @Mapping(target = "nextPriceChangeAt", ignore = true)
   Book toEntity(BookDto bookDto);
 }
@@ -0,0 +1,126 @@
+package io.kas.bookservice.util.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Timers are measured from subscription to the terminal signal and tagged by operation and outcome
+@Component
+public class BookMetrics {
+
+  public static final String MONGO_OPERATION = "book.mongo.operation";
+  public static final String TRANSACTION_PHASE = "book.transaction.phase";
+  public static final String KAFKA_SEND = "book.kafka.send";
+
+  private final MeterRegistry registry;
+  private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+  private final Counter optimisticLockConflicts;
+  private final Counter transactionAborts;
+  private final Counter catalogStatsDrops;
+  private final AtomicInteger sessionsInFlight = new AtomicInteger();
+  private final List<MongoLatencyListener> mongoLatencyListeners = new CopyOnWriteArrayList<>();
+
+  public BookMetrics(MeterRegistry registry) {
+    this.registry = registry;
+    this.optimisticLockConflicts = Counter.builder("book.optimistic.lock.conflicts")
+        .description("Updates rejected because the expected version was stale")
+        .register(registry);
+    this.transactionAborts = Counter.builder("book.transaction.aborts")
+        .description("Transactions rolled back after a failed operation or commit")
+        .register(registry);
+    this.catalogStatsDrops = Counter.builder("book.catalog.stats.drops")
+        .description("Catalog counter increments lost after a failed write, until the next reconciliation")
+        .register(registry);
+    registry.gauge("book.sessions.in.flight", sessionsInFlight);
+  }
+
+  public <T> Mono<T> timeMongo(String operation, Mono<T> mono) {
+    return time(MONGO_OPERATION, operation, mono);
+  }
+
+  public <T> Flux<T> timeMongo(String operation, Flux<T> flux) {
+    return Flux.defer(() -> {
+      long start = System.nanoTime();
+      return flux.doFinally(signal -> record(MONGO_OPERATION, operation, signal, start));
+    });
+  }
+
+  public <T> Mono<T> timeTransactionPhase(String phase, Mono<T> mono) {
+    return time(TRANSACTION_PHASE, phase, mono);
+  }
+
+  public <T> Mono<T> timeKafka(String operation, Mono<T> mono) {
+    return time(KAFKA_SEND, operation, mono);
+  }
+
+  // Receives the latency of every completed or failed Mongo operation, cancelled ones say nothing about Mongo
+  public void addMongoLatencyListener(MongoLatencyListener listener) {
+    mongoLatencyListeners.add(listener);
+  }
+
+  public void optimisticLockConflict() {
+    optimisticLockConflicts.increment();
+  }
+
+  public void transactionAborted() {
+    transactionAborts.increment();
+  }
+
+  public void catalogStatsDropped() {
+    catalogStatsDrops.increment();
+  }
+
+  public void sessionOpened() {
+    sessionsInFlight.incrementAndGet();
+  }
+
+  public void sessionClosed() {
+    sessionsInFlight.decrementAndGet();
+  }
+
+  private <T> Mono<T> time(String name, String operation, Mono<T> mono) {
+    return Mono.defer(() -> {
+      long start = System.nanoTime();
+      return mono.doFinally(signal -> record(name, operation, signal, start));
+    });
+  }
+
+  private void record(String name, String operation, SignalType signal, long start) {
+    String outcome = switch (signal) {
+      case ON_COMPLETE -> "success";
+      case ON_ERROR -> "error";
+      default -> "cancelled";
+    };
+    long elapsed = System.nanoTime() - start;
+    timer(name, operation, outcome).record(elapsed, TimeUnit.NANOSECONDS);
+    if (name.equals(MONGO_OPERATION) && signal != SignalType.CANCEL) {
+      for (MongoLatencyListener listener : mongoLatencyListeners) {
+        listener.onLatency(operation, elapsed);
+      }
+    }
+  }
+
+  private Timer timer(String name, String operation, String outcome) {
+    return timers.computeIfAbsent(name + '|' + operation + '|' + outcome, key -> Timer.builder(name)
+        .tag("operation", operation)
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(registry));
+  }
+
+  @FunctionalInterface
+  public interface MongoLatencyListener {
+    void onLatency(String operation, long nanos);
+  }
+}
@@ -0,0 +1,76 @@
+package io.kas.bookservice.util.pricing;
+
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.model.PromoInfo;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+// Effective price of a book: the largest of its discount and its active promos applies, reductions
+// do not stack. Rounded half-up to at least cents
+public final class BookPricing {
+
+  private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+  private static final int MIN_SCALE = 2;
+
+  private BookPricing() {
+  }
+
+  // Sets effectivePrice and nextPriceChangeAt as of now. Promo windows are cut to the millisecond
+  // Mongo stores, so a rewrite of the same promos is not a change
+  public static void apply(Book book, Instant now) {
+    if (book.getPromos() != null) {
+      for (PromoInfo promo : book.getPromos()) {
+        promo.setValidFrom(truncate(promo.getValidFrom()));
+        promo.setValidUntil(truncate(promo.getValidUntil()));
+      }
+    }
+    book.setEffectivePrice(effectivePrice(book, now));
+    book.setNextPriceChangeAt(nextPriceChangeAt(book.getPromos(), now));
+  }
+
+  public static BigDecimal effectivePrice(Book book, Instant now) {
+    BigDecimal price = book.getPrice();
+    if (price == null) {
+      return null;
+    }
+    int percentOff = book.getDiscount() == null ? 0 : book.getDiscount();
+    if (book.getPromos() != null) {
+      for (PromoInfo promo : book.getPromos()) {
+        if (promo.getValue() != null && promo.isActiveAt(now)) {
+          percentOff = Math.max(percentOff, promo.getValue());
+        }
+      }
+    }
+    percentOff = Math.max(0, Math.min(percentOff, 100));
+    return price.multiply(BigDecimal.valueOf(100 - percentOff))
+        .divide(HUNDRED, Math.max(MIN_SCALE, price.scale()), RoundingMode.HALF_UP);
+  }
+
+  // The earliest promo window boundary after now, null when no promo will start or end
+  public static Instant nextPriceChangeAt(List<PromoInfo> promos, Instant now) {
+    if (promos == null) {
+      return null;
+    }
+    Instant next = null;
+    for (PromoInfo promo : promos) {
+      next = earliestAfter(next, promo.getValidFrom(), now);
+      next = earliestAfter(next, promo.getValidUntil(), now);
+    }
+    return next;
+  }
+
+  private static Instant earliestAfter(Instant current, Instant candidate, Instant now) {
+    if (candidate == null || !candidate.isAfter(now)) {
+      return current;
+    }
+    return current == null || candidate.isBefore(current) ? candidate : current;
+  }
+
+  private static Instant truncate(Instant instant) {
+    return instant == null ? null : instant.truncatedTo(ChronoUnit.MILLIS);
+  }
+}
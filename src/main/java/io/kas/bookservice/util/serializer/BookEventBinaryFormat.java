@@ -0,0 +1,361 @@
+package io.kas.bookservice.util.serializer;
+
+import io.kas.bookservice.dto.events.BookEvent;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+// Compact binary encoding of BookEvent:
+//   magic | schema version | eventId | eventType | occurredAt | bookId | field mask | present fields
+// where the present fields end with the book version, the changed-fields mask of delta updates and
+// the effective price.
+// Integers are varints (zig-zag when signed), strings are a varint length plus UTF-8 bytes and the
+// payload timestamp is not written since it always equals occurredAt. New fields take the next mask
+// bit and are written last, so older readers simply stop before them; incompatible changes bump
+// SCHEMA_VERSION.
+public final class BookEventBinaryFormat {
+
+  public static final byte MAGIC = (byte) 0xBE;
+  public static final byte SCHEMA_VERSION = 1;
+
+  private static final String[] EVENT_TYPES = {"BOOK_CREATED", "BOOK_UPDATED", "BOOK_DELETED"};
+
+  private static final int TITLE = 1;
+  private static final int AUTHORS = 1 << 1;
+  private static final int DESCRIPTION = 1 << 2;
+  private static final int COVER_IMAGE = 1 << 3;
+  private static final int CATEGORY = 1 << 4;
+  private static final int PUBLISHER = 1 << 5;
+  private static final int PUBLISHED_YEAR = 1 << 6;
+  private static final int LANGUAGE = 1 << 7;
+  private static final int PAGE_COUNT = 1 << 8;
+  private static final int PRICE = 1 << 9;
+  private static final int DISCOUNT = 1 << 10;
+  private static final int STATUS = 1 << 11;
+  private static final int VERSION = 1 << 12;
+  private static final int CHANGED_FIELDS = 1 << 13;
+  private static final int EFFECTIVE_PRICE = 1 << 14;
+
+  // Changed field names travel as a mask indexed by position in this list, which follows the field
+  // bits above for the book fields and appends later ones at the end
+  private static final List<String> FIELD_NAMES = List.of("title", "authors", "description", "coverImage",
+      "category", "publisher", "publishedYear", "language", "pageCount", "price", "discount", "status",
+      "effectivePrice");
+
+  private BookEventBinaryFormat() {
+  }
+
+  public static boolean isBinary(byte[] data) {
+    return data.length > 1 && data[0] == MAGIC;
+  }
+
+  public static byte[] encode(BookEvent event) {
+    BookEvent.Payload payload = event.getPayload();
+    Writer writer = new Writer(payload.getDescription() == null ? 256 : 256 + payload.getDescription().length());
+    writer.writeByte(MAGIC);
+    writer.writeByte(SCHEMA_VERSION);
+    writer.writeUuid(event.getEventId());
+
+    int eventType = Arrays.asList(EVENT_TYPES).indexOf(event.getEventType());
+    writer.writeVarLong(eventType + 1);
+    if (eventType < 0) {
+      writer.writeString(event.getEventType());
+    }
+    writer.writeVarLong(zigZag(event.getOccurredAt().getEpochSecond()));
+    writer.writeVarLong(event.getOccurredAt().getNano());
+
+    writer.writeUuid(payload.getBookId());
+    int mask = mask(payload);
+    writer.writeVarLong(mask);
+    if ((mask & TITLE) != 0) {
+      writer.writeString(payload.getTitle());
+    }
+    if ((mask & AUTHORS) != 0) {
+      writer.writeVarLong(payload.getAuthors().size());
+      for (String author : payload.getAuthors()) {
+        writer.writeString(author);
+      }
+    }
+    if ((mask & DESCRIPTION) != 0) {
+      writer.writeString(payload.getDescription());
+    }
+    if ((mask & COVER_IMAGE) != 0) {
+      writer.writeString(payload.getCoverImage());
+    }
+    if ((mask & CATEGORY) != 0) {
+      writer.writeString(payload.getCategory());
+    }
+    if ((mask & PUBLISHER) != 0) {
+      writer.writeString(payload.getPublisher());
+    }
+    if ((mask & PUBLISHED_YEAR) != 0) {
+      writer.writeVarLong(zigZag(payload.getPublishedYear()));
+    }
+    if ((mask & LANGUAGE) != 0) {
+      writer.writeString(payload.getLanguage());
+    }
+    if ((mask & PAGE_COUNT) != 0) {
+      writer.writeVarLong(zigZag(payload.getPageCount()));
+    }
+    if ((mask & PRICE) != 0) {
+      writer.writeDecimal(payload.getPrice());
+    }
+    if ((mask & DISCOUNT) != 0) {
+      writer.writeVarLong(zigZag(payload.getDiscount()));
+    }
+    if ((mask & STATUS) != 0) {
+      writer.writeString(payload.getStatus());
+    }
+    if ((mask & VERSION) != 0) {
+      writer.writeVarLong(payload.getVersion());
+    }
+    if ((mask & CHANGED_FIELDS) != 0) {
+      writer.writeVarLong(changedFieldsMask(payload.getChangedFields()));
+    }
+    if ((mask & EFFECTIVE_PRICE) != 0) {
+      writer.writeDecimal(payload.getEffectivePrice());
+    }
+    return writer.toByteArray();
+  }
+
+  public static BookEvent decode(byte[] data) {
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(data);
+      if (buffer.get() != MAGIC) {
+        throw new IllegalArgumentException("Not a binary BookEvent");
+      }
+      byte version = buffer.get();
+      if (version != SCHEMA_VERSION) {
+        throw new IllegalArgumentException("Unsupported BookEvent schema version " + version);
+      }
+
+      BookEvent event = new BookEvent();
+      event.setEventId(readUuid(buffer));
+      int eventType = (int) readVarLong(buffer) - 1;
+      event.setEventType(eventType < 0 ? readString(buffer) : EVENT_TYPES[eventType]);
+      event.setOccurredAt(Instant.ofEpochSecond(unZigZag(readVarLong(buffer)), readVarLong(buffer)));
+
+      BookEvent.Payload payload = new BookEvent.Payload();
+      payload.setBookId(readUuid(buffer));
+      long mask = readVarLong(buffer);
+      if ((mask & TITLE) != 0) {
+        payload.setTitle(readString(buffer));
+      }
+      if ((mask & AUTHORS) != 0) {
+        int count = (int) readVarLong(buffer);
+        List<String> authors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+          authors.add(readString(buffer));
+        }
+        payload.setAuthors(authors);
+      }
+      if ((mask & DESCRIPTION) != 0) {
+        payload.setDescription(readString(buffer));
+      }
+      if ((mask & COVER_IMAGE) != 0) {
+        payload.setCoverImage(readString(buffer));
+      }
+      if ((mask & CATEGORY) != 0) {
+        payload.setCategory(readString(buffer));
+      }
+      if ((mask & PUBLISHER) != 0) {
+        payload.setPublisher(readString(buffer));
+      }
+      if ((mask & PUBLISHED_YEAR) != 0) {
+        payload.setPublishedYear((int) unZigZag(readVarLong(buffer)));
+      }
+      if ((mask & LANGUAGE) != 0) {
+        payload.setLanguage(readString(buffer));
+      }
+      if ((mask & PAGE_COUNT) != 0) {
+        payload.setPageCount((int) unZigZag(readVarLong(buffer)));
+      }
+      if ((mask & PRICE) != 0) {
+        payload.setPrice(readDecimal(buffer));
+      }
+      if ((mask & DISCOUNT) != 0) {
+        payload.setDiscount((int) unZigZag(readVarLong(buffer)));
+      }
+      if ((mask & STATUS) != 0) {
+        payload.setStatus(readString(buffer));
+      }
+      if ((mask & VERSION) != 0) {
+        payload.setVersion(readVarLong(buffer));
+      }
+      if ((mask & CHANGED_FIELDS) != 0) {
+        payload.setChangedFields(changedFields(readVarLong(buffer)));
+      }
+      if ((mask & EFFECTIVE_PRICE) != 0) {
+        payload.setEffectivePrice(readDecimal(buffer));
+      }
+      payload.setTimestamp(event.getOccurredAt());
+      event.setPayload(payload);
+      return event;
+    } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+      throw new IllegalArgumentException("Truncated binary BookEvent", e);
+    }
+  }
+
+  private static int mask(BookEvent.Payload payload) {
+    int mask = 0;
+    mask |= payload.getTitle() != null ? TITLE : 0;
+    mask |= payload.getAuthors() != null ? AUTHORS : 0;
+    mask |= payload.getDescription() != null ? DESCRIPTION : 0;
+    mask |= payload.getCoverImage() != null ? COVER_IMAGE : 0;
+    mask |= payload.getCategory() != null ? CATEGORY : 0;
+    mask |= payload.getPublisher() != null ? PUBLISHER : 0;
+    mask |= payload.getPublishedYear() != null ? PUBLISHED_YEAR : 0;
+    mask |= payload.getLanguage() != null ? LANGUAGE : 0;
+    mask |= payload.getPageCount() != null ? PAGE_COUNT : 0;
+    mask |= payload.getPrice() != null ? PRICE : 0;
+    mask |= payload.getDiscount() != null ? DISCOUNT : 0;
+    mask |= payload.getStatus() != null ? STATUS : 0;
+    mask |= payload.getVersion() != null ? VERSION : 0;
+    mask |= payload.getChangedFields() != null ? CHANGED_FIELDS : 0;
+    mask |= payload.getEffectivePrice() != null ? EFFECTIVE_PRICE : 0;
+    return mask;
+  }
+
+  private static long changedFieldsMask(List<String> changedFields) {
+    long mask = 0;
+    for (String field : changedFields) {
+      int bit = FIELD_NAMES.indexOf(field);
+      if (bit < 0) {
+        throw new IllegalArgumentException("Field " + field + " has no binary BookEvent mask bit");
+      }
+      mask |= 1L << bit;
+    }
+    return mask;
+  }
+
+  private static List<String> changedFields(long mask) {
+    List<String> fields = new ArrayList<>(Long.bitCount(mask));
+    for (int bit = 0; bit < FIELD_NAMES.size(); bit++) {
+      if ((mask & (1L << bit)) != 0) {
+        fields.add(FIELD_NAMES.get(bit));
+      }
+    }
+    return fields;
+  }
+
+  private static long zigZag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unZigZag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static long readVarLong(ByteBuffer buffer) {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = buffer.get();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed varint in binary BookEvent");
+  }
+
+  private static UUID readUuid(ByteBuffer buffer) {
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = (int) readVarLong(buffer);
+    String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+
+  // Decimals are scale + unscaled value, the unscaled value is a varint when it fits in a long
+  private static BigDecimal readDecimal(ByteBuffer buffer) {
+    int scale = (int) unZigZag(readVarLong(buffer));
+    long header = readVarLong(buffer);
+    if (header == 0) {
+      return BigDecimal.valueOf(unZigZag(readVarLong(buffer)), scale);
+    }
+    byte[] unscaled = new byte[(int) header];
+    buffer.get(unscaled);
+    return new BigDecimal(new BigInteger(unscaled), scale);
+  }
+
+  private static final class Writer {
+    private byte[] bytes;
+    private int size;
+
+    private Writer(int capacity) {
+      this.bytes = new byte[capacity];
+    }
+
+    private void writeByte(int value) {
+      ensureCapacity(1);
+      bytes[size++] = (byte) value;
+    }
+
+    private void writeVarLong(long value) {
+      ensureCapacity(10);
+      while ((value & ~0x7FL) != 0) {
+        bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      bytes[size++] = (byte) value;
+    }
+
+    private void writeUuid(UUID uuid) {
+      writeLong(uuid.getMostSignificantBits());
+      writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private void writeLong(long value) {
+      ensureCapacity(8);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        bytes[size++] = (byte) (value >>> shift);
+      }
+    }
+
+    private void writeString(String value) {
+      byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+      writeVarLong(utf8.length);
+      writeBytes(utf8);
+    }
+
+    private void writeDecimal(BigDecimal value) {
+      writeVarLong(zigZag(value.scale()));
+      BigInteger unscaled = value.unscaledValue();
+      if (unscaled.bitLength() < 64) {
+        writeVarLong(0);
+        writeVarLong(zigZag(unscaled.longValue()));
+      } else {
+        byte[] raw = unscaled.toByteArray();
+        writeVarLong(raw.length);
+        writeBytes(raw);
+      }
+    }
+
+    private void writeBytes(byte[] raw) {
+      ensureCapacity(raw.length);
+      System.arraycopy(raw, 0, bytes, size, raw.length);
+      size += raw.length;
+    }
+
+    private void ensureCapacity(int extra) {
+      if (size + extra > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+      }
+    }
+
+    private byte[] toByteArray() {
+      return Arrays.copyOf(bytes, size);
+    }
+  }
+}
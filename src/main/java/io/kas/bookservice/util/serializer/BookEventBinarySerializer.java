@@ -0,0 +1,19 @@
+package io.kas.bookservice.util.serializer;
+
+import io.kas.bookservice.dto.events.BookEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+public class BookEventBinarySerializer implements Serializer<BookEvent> {
+
+  @Override
+  public byte[] serialize(String topic, BookEvent data) {
+    if (data == null) {
+      return null;
+    }
+    try {
+      return BookEventBinaryFormat.encode(data);
+    } catch (Exception e) {
+      throw new RuntimeException("Error serializing BookEvent", e);
+    }
+  }
+}
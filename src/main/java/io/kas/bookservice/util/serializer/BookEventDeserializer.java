@@ -0,0 +1,37 @@
+package io.kas.bookservice.util.serializer;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.kas.bookservice.dto.events.BookEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Deserializer;
+
+@Slf4j
+public class BookEventDeserializer implements Deserializer<BookEvent> {
+  private final ObjectMapper objectMapper;
+
+  public BookEventDeserializer() {
+    this.objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+  }
+
+  // Reads both the JSON and the binary format so producers can switch formats on a live topic,
+  // undecodable records are skipped instead of blocking the partition
+  @Override
+  public BookEvent deserialize(String topic, byte[] data) {
+    if (data == null) {
+      return null;
+    }
+    try {
+      if (BookEventBinaryFormat.isBinary(data)) {
+        return BookEventBinaryFormat.decode(data);
+      }
+      return objectMapper.readValue(data, BookEvent.class);
+    } catch (Exception e) {
+      log.error("Error deserializing BookEvent from {}: {}", topic, e.getMessage());
+      return null;
+    }
+  }
+}
@@ -1,28 +1,164 @@
 package io.kas.bookservice.util.serializer;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
 import io.kas.bookservice.dto.events.BookEvent;
 import org.apache.kafka.common.serialization.Serializer;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+// Streams the event field by field, producing the same JSON as an ObjectMapper with JavaTimeModule
+// and ISO dates: no bean introspection, field names pre-encoded and one output buffer per thread
+// that is reset between events. The returned array is the only per-event allocation of the buffer
 public class BookEventSerializer implements Serializer<BookEvent> {
-  private final ObjectMapper objectMapper;
 
-  public BookEventSerializer() {
-    this.objectMapper = new ObjectMapper()
-        .registerModule(new JavaTimeModule())
-        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-  }
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private static final int INITIAL_BUFFER_SIZE = 4096;
+
+  private static final SerializedString EVENT_ID = new SerializedString("eventId");
+  private static final SerializedString EVENT_TYPE = new SerializedString("eventType");
+  private static final SerializedString OCCURRED_AT = new SerializedString("occurredAt");
+  private static final SerializedString PAYLOAD = new SerializedString("payload");
+  private static final SerializedString BOOK_ID = new SerializedString("bookId");
+  private static final SerializedString VERSION = new SerializedString("version");
+  private static final SerializedString CHANGED_FIELDS = new SerializedString("changedFields");
+  private static final SerializedString TITLE = new SerializedString("title");
+  private static final SerializedString AUTHORS = new SerializedString("authors");
+  private static final SerializedString DESCRIPTION = new SerializedString("description");
+  private static final SerializedString COVER_IMAGE = new SerializedString("coverImage");
+  private static final SerializedString CATEGORY = new SerializedString("category");
+  private static final SerializedString PUBLISHER = new SerializedString("publisher");
+  private static final SerializedString PUBLISHED_YEAR = new SerializedString("publishedYear");
+  private static final SerializedString LANGUAGE = new SerializedString("language");
+  private static final SerializedString PAGE_COUNT = new SerializedString("pageCount");
+  private static final SerializedString PRICE = new SerializedString("price");
+  private static final SerializedString DISCOUNT = new SerializedString("discount");
+  private static final SerializedString EFFECTIVE_PRICE = new SerializedString("effectivePrice");
+  private static final SerializedString STATUS = new SerializedString("status");
+  private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+
+  private static final ThreadLocal<ByteArrayBuilder> BUFFERS =
+      ThreadLocal.withInitial(() -> new ByteArrayBuilder(INITIAL_BUFFER_SIZE));
 
   @Override
   public byte[] serialize(String topic, BookEvent data) {
-    try {
-      return objectMapper.writeValueAsBytes(data);
+    if (data == null) {
+      return null;
+    }
+    ByteArrayBuilder buffer = BUFFERS.get();
+    buffer.reset();
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(buffer)) {
+      writeEvent(generator, data);
     } catch (Exception e) {
       throw new RuntimeException("Error serializing BookEvent", e);
     }
+    return buffer.toByteArray();
+  }
+
+  private static void writeEvent(JsonGenerator generator, BookEvent event) throws IOException {
+    generator.writeStartObject();
+    generator.writeFieldName(EVENT_ID);
+    writeUuid(generator, event.getEventId());
+    generator.writeFieldName(EVENT_TYPE);
+    generator.writeString(event.getEventType());
+    generator.writeFieldName(OCCURRED_AT);
+    writeInstant(generator, event.getOccurredAt());
+    generator.writeFieldName(PAYLOAD);
+    if (event.getPayload() == null) {
+      generator.writeNull();
+    } else {
+      writePayload(generator, event.getPayload());
+    }
+    generator.writeEndObject();
+  }
+
+  // Payload leaves out null fields
+  private static void writePayload(JsonGenerator generator, BookEvent.Payload payload) throws IOException {
+    generator.writeStartObject();
+    if (payload.getBookId() != null) {
+      generator.writeFieldName(BOOK_ID);
+      writeUuid(generator, payload.getBookId());
+    }
+    if (payload.getVersion() != null) {
+      generator.writeFieldName(VERSION);
+      generator.writeNumber(payload.getVersion());
+    }
+    writeStrings(generator, CHANGED_FIELDS, payload.getChangedFields());
+    writeString(generator, TITLE, payload.getTitle());
+    writeStrings(generator, AUTHORS, payload.getAuthors());
+    writeString(generator, DESCRIPTION, payload.getDescription());
+    writeString(generator, COVER_IMAGE, payload.getCoverImage());
+    writeString(generator, CATEGORY, payload.getCategory());
+    writeString(generator, PUBLISHER, payload.getPublisher());
+    writeInt(generator, PUBLISHED_YEAR, payload.getPublishedYear());
+    writeString(generator, LANGUAGE, payload.getLanguage());
+    writeInt(generator, PAGE_COUNT, payload.getPageCount());
+    writeDecimal(generator, PRICE, payload.getPrice());
+    writeInt(generator, DISCOUNT, payload.getDiscount());
+    writeDecimal(generator, EFFECTIVE_PRICE, payload.getEffectivePrice());
+    writeString(generator, STATUS, payload.getStatus());
+    if (payload.getTimestamp() != null) {
+      generator.writeFieldName(TIMESTAMP);
+      writeInstant(generator, payload.getTimestamp());
+    }
+    generator.writeEndObject();
+  }
+
+  private static void writeString(JsonGenerator generator, SerializedString name, String value) throws IOException {
+    if (value != null) {
+      generator.writeFieldName(name);
+      generator.writeString(value);
+    }
+  }
+
+  private static void writeStrings(JsonGenerator generator, SerializedString name, List<String> values)
+      throws IOException {
+    if (values == null) {
+      return;
+    }
+    generator.writeFieldName(name);
+    generator.writeStartArray();
+    for (String value : values) {
+      generator.writeString(value);
+    }
+    generator.writeEndArray();
+  }
+
+  private static void writeInt(JsonGenerator generator, SerializedString name, Integer value) throws IOException {
+    if (value != null) {
+      generator.writeFieldName(name);
+      generator.writeNumber(value);
+    }
   }
-}
 
+  private static void writeDecimal(JsonGenerator generator, SerializedString name, BigDecimal value)
+      throws IOException {
+    if (value != null) {
+      generator.writeFieldName(name);
+      generator.writeNumber(value);
+    }
+  }
+
+  private static void writeUuid(JsonGenerator generator, UUID value) throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else {
+      generator.writeString(value.toString());
+    }
+  }
 
+  // ISO-8601 as JavaTimeModule writes it with WRITE_DATES_AS_TIMESTAMPS disabled
+  private static void writeInstant(JsonGenerator generator, Instant value) throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else {
+      generator.writeString(value.toString());
+    }
+  }
+}
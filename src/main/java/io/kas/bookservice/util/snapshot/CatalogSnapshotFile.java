@@ -0,0 +1,151 @@
+package io.kas.bookservice.util.snapshot;
+
+import io.kas.bookservice.config.MongoConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Catalog snapshot for warm starts, the books as stored BSON with the book-topic end offsets taken
+// before the scan:
+//   int magic, byte format version, long createdAt millis
+//   int partition count, then per partition: UTF topic, int partition, long offset
+//   per book: int length, long id msb, long id lsb, long version, BSON document
+//   int 0
+// Every event below the offsets is reflected in the scan, so replaying from them loses nothing
+public final class CatalogSnapshotFile {
+
+  private static final int MAGIC = 0x424b534e;
+  private static final byte FORMAT_VERSION = 1;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private CatalogSnapshotFile() {
+  }
+
+  public record Header(Instant createdAt, Map<TopicPartition, Long> offsets) {}
+
+  @FunctionalInterface
+  public interface BookConsumer {
+    // document is reused, only its first length bytes are the book. createdAt is the snapshot's, the
+    // book was read from Mongo after it
+    void accept(UUID id, long version, byte[] document, int length, Instant createdAt);
+  }
+
+  // Readers never see a partial file, the snapshot is written next to it and moved into place
+  public static Writer create(Path path, Map<TopicPartition, Long> offsets) throws IOException {
+    Path temp = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE));
+    try {
+      out.writeInt(MAGIC);
+      out.writeByte(FORMAT_VERSION);
+      out.writeLong(Instant.now().toEpochMilli());
+      out.writeInt(offsets.size());
+      for (Map.Entry<TopicPartition, Long> entry : offsets.entrySet()) {
+        out.writeUTF(entry.getKey().topic());
+        out.writeInt(entry.getKey().partition());
+        out.writeLong(entry.getValue());
+      }
+    } catch (IOException e) {
+      out.close();
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+    return new Writer(path, temp, out);
+  }
+
+  public static Header read(Path path, BookConsumer consumer) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Not a catalog snapshot: " + path);
+      }
+      byte formatVersion = in.readByte();
+      if (formatVersion != FORMAT_VERSION) {
+        throw new IOException("Unsupported catalog snapshot format " + formatVersion);
+      }
+      Instant createdAt = Instant.ofEpochMilli(in.readLong());
+      int partitions = in.readInt();
+      Map<TopicPartition, Long> offsets = new HashMap<>();
+      for (int i = 0; i < partitions; i++) {
+        offsets.put(new TopicPartition(in.readUTF(), in.readInt()), in.readLong());
+      }
+      byte[] document = new byte[8192];
+      // A truncated file ends in EOFException instead of the end marker
+      for (int length = in.readInt(); length != 0; length = in.readInt()) {
+        UUID id = new UUID(in.readLong(), in.readLong());
+        long version = in.readLong();
+        if (document.length < length) {
+          document = new byte[Integer.highestOneBit(length) << 1];
+        }
+        in.readFully(document, 0, length);
+        consumer.accept(id, version, document, length, createdAt);
+      }
+      return new Header(createdAt, offsets);
+    }
+  }
+
+  public static final class Writer implements Closeable {
+
+    private final Path path;
+    private final Path temp;
+    private final DataOutputStream out;
+    private long books;
+    private boolean committed;
+
+    private Writer(Path path, Path temp, DataOutputStream out) {
+      this.path = path;
+      this.temp = temp;
+      this.out = out;
+    }
+
+    // Documents without a UUID _id or a version cannot be checked against events and are left out
+    public void write(RawBsonDocument document) throws IOException {
+      BsonValue id = document.get("_id");
+      BsonValue version = document.get("version");
+      if (id == null || !id.isBinary() || version == null || !version.isNumber()) {
+        return;
+      }
+      UUID uuid = id.asBinary().asUuid(MongoConfig.UUID_REPRESENTATION);
+      ByteBuffer bytes = document.getByteBuffer().asNIO();
+      out.writeInt(bytes.remaining());
+      out.writeLong(uuid.getMostSignificantBits());
+      out.writeLong(uuid.getLeastSignificantBits());
+      out.writeLong(version.asNumber().longValue());
+      out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+      books++;
+    }
+
+    public long books() {
+      return books;
+    }
+
+    public void commit() throws IOException {
+      out.writeInt(0);
+      out.close();
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      committed = true;
+    }
+
+    // Without a commit the partial file is removed
+    @Override
+    public void close() throws IOException {
+      if (!committed) {
+        out.close();
+        Files.deleteIfExists(temp);
+      }
+    }
+  }
+}
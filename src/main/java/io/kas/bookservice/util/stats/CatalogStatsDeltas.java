@@ -0,0 +1,132 @@
+package io.kas.bookservice.util.stats;
+
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.model.CatalogStat;
+import io.kas.bookservice.model.CatalogStatsResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Catalog counters, one document for the whole catalog and one per category, language and status.
+// A write moves them by the difference between the book before and after it: -1 in the buckets of
+// the old book and +1 in those of the new one, likewise for the effective price
+public final class CatalogStatsDeltas {
+
+  public static final String TOTAL = "total";
+  public static final String CATEGORY = "category";
+  public static final String LANGUAGE = "language";
+  public static final String STATUS = "status";
+  private static final Set<String> DIMENSIONS = Set.of(TOTAL, CATEGORY, LANGUAGE, STATUS);
+
+  private CatalogStatsDeltas() {
+  }
+
+  // before is null for a create, after for a delete. Buckets that net to zero are left out, so an
+  // update that moves no counter gives no deltas
+  public static Collection<CatalogStat> between(Book before, Book after) {
+    Map<String, CatalogStat> deltas = new HashMap<>();
+    add(deltas, before, -1);
+    add(deltas, after, 1);
+    return nonZero(deltas);
+  }
+
+  public static void add(Map<String, CatalogStat> deltas, Book book, int sign) {
+    if (book == null) {
+      return;
+    }
+    BigDecimal price = book.getEffectivePrice();
+    long priced = price == null ? 0 : 1;
+    BigDecimal priceSum = price == null ? BigDecimal.ZERO : price;
+    add(deltas, TOTAL, null, 1, priced, priceSum, sign);
+    if (book.getCategory() != null) {
+      add(deltas, CATEGORY, book.getCategory().name(), 1, priced, priceSum, sign);
+    }
+    if (book.getLanguage() != null) {
+      add(deltas, LANGUAGE, book.getLanguage().name(), 1, priced, priceSum, sign);
+    }
+    if (book.getStatus() != null) {
+      add(deltas, STATUS, book.getStatus().name(), 1, priced, priceSum, sign);
+    }
+  }
+
+  public static Collection<CatalogStat> nonZero(Map<String, CatalogStat> deltas) {
+    deltas.values().removeIf(delta -> delta.getCount() == 0 && delta.getPricedCount() == 0
+        && delta.getPriceSum().signum() == 0);
+    return deltas.values();
+  }
+
+  // What moves the stored counters to the aggregated ones
+  public static Collection<CatalogStat> correction(Collection<CatalogStat> aggregated, Collection<CatalogStat> stored) {
+    Map<String, CatalogStat> deltas = new HashMap<>();
+    for (CatalogStat stat : aggregated) {
+      add(deltas, stat, 1);
+    }
+    for (CatalogStat stat : stored) {
+      if (isCounter(stat)) {
+        add(deltas, stat, -1);
+      }
+    }
+    return nonZero(deltas);
+  }
+
+  // Buckets of books without the field are left out, the total counts them
+  public static List<CatalogStat> fromAggregation(CatalogStatsResult result) {
+    List<CatalogStat> stats = new ArrayList<>();
+    result.getTotal().forEach(bucket -> stats.add(toStat(TOTAL, null, bucket)));
+    result.getCategories().stream().filter(bucket -> bucket.getValue() != null)
+        .forEach(bucket -> stats.add(toStat(CATEGORY, bucket.getValue(), bucket)));
+    result.getLanguages().stream().filter(bucket -> bucket.getValue() != null)
+        .forEach(bucket -> stats.add(toStat(LANGUAGE, bucket.getValue(), bucket)));
+    result.getStatuses().stream().filter(bucket -> bucket.getValue() != null)
+        .forEach(bucket -> stats.add(toStat(STATUS, bucket.getValue(), bucket)));
+    return stats;
+  }
+
+  public static boolean isCounter(CatalogStat stat) {
+    return stat.getDimension() != null && DIMENSIONS.contains(stat.getDimension());
+  }
+
+  public static String key(String dimension, String value) {
+    return value == null ? dimension : dimension + ":" + value;
+  }
+
+  private static CatalogStat toStat(String dimension, String value, CatalogStatsResult.Bucket bucket) {
+    return CatalogStat.builder()
+        .id(key(dimension, value))
+        .dimension(dimension)
+        .value(value)
+        .count(bucket.getCount())
+        .pricedCount(bucket.getPricedCount())
+        .priceSum(bucket.getPriceSum())
+        .build();
+  }
+
+  private static void add(Map<String, CatalogStat> deltas, CatalogStat stat, int sign) {
+    add(deltas, stat.getDimension(), stat.getValue(), orZero(stat.getCount()), orZero(stat.getPricedCount()),
+        stat.getPriceSum() == null ? BigDecimal.ZERO : stat.getPriceSum(), sign);
+  }
+
+  private static void add(Map<String, CatalogStat> deltas, String dimension, String value, long count,
+                          long pricedCount, BigDecimal priceSum, int sign) {
+    CatalogStat delta = deltas.computeIfAbsent(key(dimension, value), key -> CatalogStat.builder()
+        .id(key)
+        .dimension(dimension)
+        .value(value)
+        .count(0L)
+        .pricedCount(0L)
+        .priceSum(BigDecimal.ZERO)
+        .build());
+    delta.setCount(delta.getCount() + sign * count);
+    delta.setPricedCount(delta.getPricedCount() + sign * pricedCount);
+    delta.setPriceSum(sign > 0 ? delta.getPriceSum().add(priceSum) : delta.getPriceSum().subtract(priceSum));
+  }
+
+  private static long orZero(Long value) {
+    return value == null ? 0 : value;
+  }
+}
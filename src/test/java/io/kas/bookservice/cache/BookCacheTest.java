@@ -0,0 +1,99 @@
+package io.kas.bookservice.cache;
+
+import io.kas.bookservice.config.CacheProperties;
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.repository.BookDao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookCacheTest {
+
+  private static final Duration HEAP_EXPIRY = Duration.ofMillis(20);
+
+  private final BookDao bookDao = mock(BookDao.class);
+  private final BookCache bookCache = new BookCache(bookDao, new CacheProperties(1000, HEAP_EXPIRY,
+      new CacheProperties.OffHeap(true, DataSize.ofMegabytes(2), DataSize.ofMegabytes(1), 1000, Duration.ofHours(1))),
+      new SimpleMeterRegistry());
+
+  @Test
+  void recentOffHeapCopiesAreServedWithoutACheck() {
+    // The heap tier keeps nothing, every read goes to the off-heap tier
+    BookCache bookCache = new BookCache(bookDao, new CacheProperties(0, Duration.ofMinutes(10),
+        new CacheProperties.OffHeap(true, DataSize.ofMegabytes(2), DataSize.ofMegabytes(1), 1000, Duration.ofHours(1))),
+        new SimpleMeterRegistry());
+    Book book = book(UUID.randomUUID(), 1, "Dune");
+    bookCache.put(book);
+
+    StepVerifier.create(bookCache.get(book.getId(), id -> Mono.error(new AssertionError("loaded"))))
+        .expectNextMatches(cached -> cached.getVersion() == 1)
+        .verifyComplete();
+    verify(bookDao, never()).findVersionsByIds(any());
+  }
+
+  @Test
+  void olderCopiesAreServedWhileMongoHoldsTheirVersion() throws InterruptedException {
+    Book book = book(UUID.randomUUID(), 1, "Dune");
+    bookCache.put(book);
+    Thread.sleep(HEAP_EXPIRY.toMillis() * 2);
+    when(bookDao.findVersionsByIds(any())).thenReturn(Flux.just(book(book.getId(), 1, null)));
+
+    StepVerifier.create(bookCache.get(book.getId(), id -> Mono.error(new AssertionError("loaded"))))
+        .expectNextMatches(cached -> "Dune".equals(cached.getTitle()))
+        .verifyComplete();
+  }
+
+  @Test
+  void olderCopiesBehindMongoAreReloaded() throws InterruptedException {
+    UUID id = UUID.randomUUID();
+    bookCache.put(book(id, 1, "Dune"));
+    Thread.sleep(HEAP_EXPIRY.toMillis() * 2);
+    when(bookDao.findVersionsByIds(any())).thenReturn(Flux.just(book(id, 2, null)));
+
+    StepVerifier.create(bookCache.get(id, missing -> Mono.just(book(id, 2, "Dune Messiah"))))
+        .expectNextMatches(loaded -> loaded.getVersion() == 2)
+        .verifyComplete();
+  }
+
+  @Test
+  void getAllReloadsOnlyTheStaleCopies() throws InterruptedException {
+    UUID current = UUID.randomUUID();
+    UUID stale = UUID.randomUUID();
+    UUID deleted = UUID.randomUUID();
+    bookCache.put(book(current, 3, "Dune"));
+    bookCache.put(book(stale, 1, "Dune Messiah"));
+    bookCache.put(book(deleted, 1, "Children of Dune"));
+    Thread.sleep(HEAP_EXPIRY.toMillis() * 2);
+    when(bookDao.findVersionsByIds(any())).thenReturn(Flux.just(book(current, 3, null), book(stale, 2, null)));
+
+    StepVerifier.create(bookCache.getAll(List.of(current, stale, deleted), missing -> {
+          if (!missing.equals(Set.of(stale, deleted))) {
+            return Mono.error(new AssertionError("loaded " + missing));
+          }
+          return Mono.just(Map.of(stale, book(stale, 2, "Dune Messiah")));
+        }))
+        .expectNextMatches(books -> books.size() == 2
+            && books.get(current).getVersion() == 3
+            && books.get(stale).getVersion() == 2)
+        .verifyComplete();
+  }
+
+  private static Book book(UUID id, long version, String title) {
+    return Book.builder().id(id).version(version).title(title).build();
+  }
+}
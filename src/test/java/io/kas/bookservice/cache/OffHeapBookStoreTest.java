@@ -0,0 +1,215 @@
+package io.kas.bookservice.cache;
+
+import io.kas.bookservice.config.MongoConfig;
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.model.Category;
+import io.kas.bookservice.model.Language;
+import io.kas.bookservice.model.Status;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.io.BasicOutputBuffer;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapBookStoreTest {
+
+  private static final long HOUR = 3_600_000;
+
+  @Test
+  void returnsWhatWasStored() {
+    OffHeapBookStore store = new OffHeapBookStore(1 << 20, 1 << 16, 16, HOUR);
+    Book book = book(UUID.randomUUID(), 2);
+
+    store.put(book);
+
+    Book stored = store.get(book.getId());
+    assertThat(stored).usingRecursiveComparison().isEqualTo(book);
+    assertThat(store.get(UUID.randomUUID())).isNull();
+  }
+
+  @Test
+  void keepsTheNewerVersion() {
+    OffHeapBookStore store = new OffHeapBookStore(1 << 20, 1 << 16, 16, HOUR);
+    UUID id = UUID.randomUUID();
+
+    store.put(book(id, 5));
+    store.put(book(id, 4));
+    assertThat(store.get(id).getVersion()).isEqualTo(5L);
+
+    store.put(book(id, 6));
+    assertThat(store.get(id).getVersion()).isEqualTo(6L);
+  }
+
+  @Test
+  void removeOlderThanKeepsACopyAtTheEventsVersion() {
+    OffHeapBookStore store = new OffHeapBookStore(1 << 20, 1 << 16, 16, HOUR);
+    UUID id = UUID.randomUUID();
+    store.put(book(id, 3));
+
+    store.removeOlderThan(id, 3);
+    assertThat(store.get(id)).isNotNull();
+
+    store.removeOlderThan(id, 4);
+    assertThat(store.get(id)).isNull();
+
+    // A removed entry no longer holds back an older version
+    store.put(book(id, 2));
+    assertThat(store.get(id).getVersion()).isEqualTo(2L);
+  }
+
+  @Test
+  void overwrittenSegmentsAreMisses() {
+    int segmentSize = 4096;
+    OffHeapBookStore store = new OffHeapBookStore(2L * segmentSize, segmentSize, 1024, HOUR);
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Book book = book(UUID.randomUUID(), 0);
+      store.put(book);
+      ids.add(book.getId());
+    }
+
+    assertThat(store.usedBytes()).isEqualTo(2L * segmentSize);
+    assertThat(store.get(ids.get(0))).isNull();
+    assertThat(store.get(ids.get(99))).isNotNull();
+    long live = ids.stream().filter(id -> store.get(id) != null).count();
+    assertThat(live).isBetween(1L, 99L);
+    // The live books are the latest ones
+    assertThat(ids.subList(ids.size() - (int) live, ids.size())).allMatch(id -> store.get(id) != null);
+  }
+
+  @RepeatedTest(50)
+  void slotsOfRemovedOrOverwrittenEntriesAreReused() {
+    OffHeapBookStore store = new OffHeapBookStore(1 << 20, 1 << 16, 4, HOUR);
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Book book = book(UUID.randomUUID(), 0);
+      store.put(book);
+      ids.add(book.getId());
+    }
+    assertThat(store.occupiedSlots()).isEqualTo(4);
+
+    for (int i = 0; i < 50; i++) {
+      UUID removed = ids.remove(0);
+      store.remove(removed);
+      Book book = book(UUID.randomUUID(), 0);
+      store.put(book);
+      ids.add(book.getId());
+      assertThat(store.occupiedSlots()).isLessThanOrEqualTo(4);
+    }
+    assertThat(ids).allMatch(id -> store.get(id) != null);
+  }
+
+  @Test
+  void aFullTableStartsOver() {
+    OffHeapBookStore store = new OffHeapBookStore(1 << 20, 1 << 16, 4, HOUR);
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      Book book = book(UUID.randomUUID(), 0);
+      store.put(book);
+      ids.add(book.getId());
+    }
+
+    assertThat(store.occupiedSlots()).isEqualTo(1);
+    assertThat(store.get(ids.get(0))).isNull();
+    assertThat(store.get(ids.get(4))).isNotNull();
+  }
+
+  // Purges and clears may drop entries, but a hit is never a removed book or an older version
+  @Test
+  void neverReturnsARemovedOrOlderBook() {
+    OffHeapBookStore store = new OffHeapBookStore(1 << 20, 1 << 16, 64, HOUR);
+    Random random = new Random(42);
+    List<UUID> ids = new ArrayList<>();
+    Map<UUID, Long> versions = new HashMap<>();
+    for (int i = 0; i < 200; i++) {
+      ids.add(UUID.randomUUID());
+    }
+    for (int i = 0; i < 20_000; i++) {
+      UUID id = ids.get(random.nextInt(ids.size()));
+      if (random.nextInt(4) == 0) {
+        store.remove(id);
+        versions.remove(id);
+      } else {
+        long version = versions.getOrDefault(id, -1L) + 1;
+        store.put(book(id, version));
+        versions.put(id, version);
+      }
+      UUID probe = ids.get(random.nextInt(ids.size()));
+      Book stored = store.get(probe);
+      if (stored != null) {
+        assertThat(stored.getVersion()).isEqualTo(versions.get(probe));
+      }
+    }
+    assertThat(store.occupiedSlots()).isLessThanOrEqualTo(64);
+    assertThat(versions.keySet().stream().filter(id -> store.get(id) != null).count()).isPositive();
+  }
+
+  @Test
+  void expiredEntriesAreMisses() {
+    OffHeapBookStore store = new OffHeapBookStore(1 << 20, 1 << 16, 16, -1);
+    Book book = book(UUID.randomUUID(), 0);
+    store.put(book);
+
+    assertThat(store.get(book.getId())).isNull();
+  }
+
+  @Test
+  void snapshotCopiesAgeFromTheirSnapshot() {
+    OffHeapBookStore store = new OffHeapBookStore(1 << 20, 1 << 16, 16, HOUR);
+    UUID recent = UUID.randomUUID();
+    UUID old = UUID.randomUUID();
+    long now = System.currentTimeMillis();
+
+    byte[] document = encode(book(recent, 1));
+    store.put(recent, 1, document, document.length, now - HOUR / 2);
+    document = encode(book(old, 1));
+    store.put(old, 1, document, document.length, now - 2 * HOUR);
+
+    assertThat(store.get(recent)).isNotNull();
+    assertThat(store.get(old)).isNull();
+  }
+
+  @Test
+  void documentsLargerThanASegmentAreNotStored() {
+    OffHeapBookStore store = new OffHeapBookStore(2048, 1024, 16, HOUR);
+    Book book = book(UUID.randomUUID(), 0);
+    book.setDescription("x".repeat(2000));
+    store.put(book);
+
+    assertThat(store.get(book.getId())).isNull();
+    assertThat(store.usedBytes()).isZero();
+  }
+
+  private static byte[] encode(Book book) {
+    BasicOutputBuffer buffer = new BasicOutputBuffer();
+    CodecRegistries.withUuidRepresentation(MongoConfig.pojoCodecRegistry(), MongoConfig.UUID_REPRESENTATION)
+        .get(Book.class)
+        .encode(new BsonBinaryWriter(buffer), book, EncoderContext.builder().build());
+    return buffer.toByteArray();
+  }
+
+  private static Book book(UUID id, long version) {
+    return Book.builder()
+        .id(id)
+        .title("The Left Hand of Darkness")
+        .authors(List.of("Ursula K. Le Guin"))
+        .category(Category.FICTION)
+        .language(Language.EN)
+        .price(new BigDecimal("12.50"))
+        .effectivePrice(new BigDecimal("12.50"))
+        .status(Status.PUBLISHED)
+        .version(version)
+        .build();
+  }
+}
@@ -0,0 +1,52 @@
+package io.kas.bookservice.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProjectedBookTest {
+
+  private static final UUID ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+  private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+  @Test
+  void projectedBooksLeaveOutTheFieldsNotRead() throws Exception {
+    assertThat(mapper.writeValueAsString(new ProjectedBook(titleOnly(), true)))
+        .isEqualTo("{\"id\":\"" + ID + "\",\"title\":\"Dune\",\"version\":3}");
+  }
+
+  @Test
+  void fullBooksKeepTheirNullFields() throws Exception {
+    String json = mapper.writeValueAsString(new ProjectedBook(titleOnly(), false));
+
+    assertThat(json).contains("\"description\":null", "\"price\":null");
+    assertThat(json).isEqualTo(mapper.writeValueAsString(titleOnly()));
+  }
+
+  @Test
+  void otherBookDtosKeepTheirNullFields() throws Exception {
+    mapper.writeValueAsString(new ProjectedBook(titleOnly(), true));
+
+    assertThat(mapper.writeValueAsString(titleOnly())).contains("\"description\":null");
+  }
+
+  @Test
+  void projectedBooksNestInBatchItems() throws Exception {
+    List<BatchLookupItem> items = List.of(
+        new BatchLookupItem(ID, true, null, "\"tag\"", new ProjectedBook(titleOnly(), true)),
+        new BatchLookupItem(ID, false, null, null, null));
+
+    assertThat(mapper.writeValueAsString(items)).isEqualTo("[{\"id\":\"" + ID + "\",\"found\":true,\"etag\":\"\\\"tag\\\"\","
+        + "\"book\":{\"id\":\"" + ID + "\",\"title\":\"Dune\",\"version\":3}},"
+        + "{\"id\":\"" + ID + "\",\"found\":false}]");
+  }
+
+  private static BookDto titleOnly() {
+    return new BookDto(ID, "Dune", null, null, null, null, null, null, null, null, null, null, null, null, null, 3L);
+  }
+}
@@ -0,0 +1,108 @@
+package io.kas.bookservice.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookFieldTest {
+
+  private static final Instant FROM = Instant.parse("2025-01-01T00:00:00Z");
+  private static final Instant UNTIL = Instant.parse("2025-02-01T00:00:00Z");
+
+  @Test
+  void identicalBooksDoNotDiffer() {
+    assertThat(BookField.diff(book(), book())).isEmpty();
+  }
+
+  @Test
+  void idAndVersionAreNotCompared() {
+    Book incoming = book().toBuilder().id(UUID.randomUUID()).version(9L).build();
+    assertThat(BookField.diff(book(), incoming)).isEmpty();
+  }
+
+  @Test
+  void reportsEachChangedField() {
+    Book incoming = book().toBuilder()
+        .title("The Dispossessed")
+        .authors(List.of("Ursula K. Le Guin", "Someone Else"))
+        .category(Category.SCIENCE)
+        .status(Status.DRAFT)
+        .build();
+    assertThat(BookField.diff(book(), incoming))
+        .containsExactlyInAnyOrder(BookField.TITLE, BookField.AUTHORS, BookField.CATEGORY, BookField.STATUS);
+  }
+
+  @Test
+  void pricesAreComparedByValue() {
+    Book incoming = book().toBuilder()
+        .price(new BigDecimal("12.500"))
+        .effectivePrice(new BigDecimal("12.5"))
+        .build();
+    assertThat(BookField.diff(book(), incoming)).isEmpty();
+
+    incoming.setPrice(new BigDecimal("12.51"));
+    assertThat(BookField.diff(book(), incoming)).containsExactly(BookField.PRICE);
+  }
+
+  @Test
+  void settingOrClearingAFieldIsAChange() {
+    Book incoming = book().toBuilder().description(null).discount(10).build();
+    assertThat(BookField.diff(book(), incoming)).containsExactlyInAnyOrder(BookField.DESCRIPTION, BookField.DISCOUNT);
+  }
+
+  @Test
+  void promosAreComparedByContent() {
+    Book incoming = book().toBuilder().promos(List.of(promo(20))).build();
+    assertThat(BookField.diff(book(), incoming)).isEmpty();
+
+    incoming.setPromos(List.of(promo(25)));
+    assertThat(BookField.diff(book(), incoming)).containsExactly(BookField.PROMOS);
+  }
+
+  @Test
+  void everyFieldCanBeCopied() {
+    Book from = book().toBuilder().discount(5).nextPriceChangeAt(UNTIL).build();
+    Book to = new Book();
+    for (BookField field : BookField.values()) {
+      field.copy(from, to);
+    }
+    assertThat(BookField.diff(from, to)).isEmpty();
+    assertThat(BookField.diff(new Book(), from)).isEqualTo(EnumSet.allOf(BookField.class));
+  }
+
+  @Test
+  void looksFieldsUpByStoredName() {
+    assertThat(BookField.byFieldName("effectivePrice")).isEqualTo(BookField.EFFECTIVE_PRICE);
+    assertThat(BookField.byFieldName("version")).isNull();
+  }
+
+  private static Book book() {
+    return Book.builder()
+        .id(UUID.fromString("0f8fad5b-d9cb-469f-a165-70867728950e"))
+        .title("The Left Hand of Darkness")
+        .authors(List.of("Ursula K. Le Guin"))
+        .description("A novel")
+        .coverImage("https://example.com/cover.png")
+        .category(Category.FICTION)
+        .publisher("Ace")
+        .publishedYear(1969)
+        .language(Language.EN)
+        .pageCount(304)
+        .promos(List.of(promo(20)))
+        .price(new BigDecimal("12.50"))
+        .status(Status.PUBLISHED)
+        .effectivePrice(new BigDecimal("12.50"))
+        .version(3L)
+        .build();
+  }
+
+  private static PromoInfo promo(int value) {
+    return new PromoInfo(UUID.fromString("7c9e6679-7425-40de-944b-e07fc1f90ae7"), value, FROM, UNTIL);
+  }
+}
@@ -0,0 +1,91 @@
+package io.kas.bookservice.ratelimit;
+
+import io.kas.bookservice.config.RateLimitProperties;
+import io.kas.bookservice.util.metrics.BookMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+  private static final String PROXY = "10.0.0.1";
+
+  private final RateLimitFilter filter = filter(false);
+
+  @Test
+  void clientsBehindATrustedProxyHaveTheirOwnBuckets() {
+    assertThat(status(PROXY, "203.0.113.7")).isNull();
+    assertThat(status(PROXY, "203.0.113.8")).isNull();
+    assertThat(status(PROXY, "203.0.113.7")).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+  }
+
+  @Test
+  void addressesPrependedByTheClientAreIgnored() {
+    assertThat(status(PROXY, "198.51.100.1, 203.0.113.7")).isNull();
+    assertThat(status(PROXY, "198.51.100.2, 203.0.113.7")).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+  }
+
+  @Test
+  void untrustedClientsAreKeyedOnTheirAddress() {
+    assertThat(status("192.0.2.5", "203.0.113.7")).isNull();
+    assertThat(status("192.0.2.5", "203.0.113.8")).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+  }
+
+  @Test
+  void clientIdsAreIgnoredUnlessTrusted() {
+    assertThat(status(filter, "192.0.2.5", null, "client-a")).isNull();
+    assertThat(status(filter, "192.0.2.5", null, "client-b")).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    assertThat(status(filter, PROXY, "203.0.113.7", "client-a")).isNull();
+    assertThat(status(filter, PROXY, "203.0.113.7", "client-b")).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+  }
+
+  @Test
+  void trustedClientIdsAreTakenOnlyFromTrustedProxies() {
+    RateLimitFilter trusting = filter(true);
+    assertThat(status(trusting, PROXY, "203.0.113.7", "client-a")).isNull();
+    assertThat(status(trusting, PROXY, "203.0.113.7", "client-b")).isNull();
+    assertThat(status(trusting, "192.0.2.5", null, "client-c")).isNull();
+    assertThat(status(trusting, "192.0.2.5", null, "client-d")).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+  }
+
+  private HttpStatus status(String remoteAddress, String forwardedFor) {
+    return status(filter, remoteAddress, forwardedFor, null);
+  }
+
+  private static HttpStatus status(RateLimitFilter filter, String remoteAddress, String forwardedFor,
+                                   String clientId) {
+    MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/v1/books")
+        .remoteAddress(new InetSocketAddress(remoteAddress, 40000));
+    if (forwardedFor != null) {
+      request.header("X-Forwarded-For", forwardedFor);
+    }
+    if (clientId != null) {
+      request.header("X-Client-Id", clientId);
+    }
+    MockServerWebExchange exchange = MockServerWebExchange.from(request);
+    filter.filter(exchange, ignored -> Mono.empty()).block();
+    return (HttpStatus) exchange.getResponse().getStatusCode();
+  }
+
+  // One token per client, refilled too slowly to matter within a test
+  private static RateLimitFilter filter(boolean trustClientIdHeader) {
+    RateLimitProperties properties = new RateLimitProperties(true, "X-Client-Id", trustClientIdHeader,
+        "X-Forwarded-For", Set.of(PROXY),
+        1000,
+        new RateLimitProperties.Bucket(0.001, 1),
+        new RateLimitProperties.Bucket(0.001, 1),
+        new RateLimitProperties.Concurrency(64, 8, 1024, 0.5, 2.0, Set.of(), Duration.ofSeconds(1)));
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    return new RateLimitFilter(properties,
+        new AdaptiveConcurrencyLimiter(properties, new BookMetrics(registry), registry), registry);
+  }
+}
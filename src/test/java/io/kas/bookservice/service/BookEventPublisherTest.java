@@ -0,0 +1,61 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.config.BookKafkaProperties;
+import io.kas.bookservice.dto.events.BookEvent;
+import io.kas.bookservice.util.serializer.BookEventSerializer;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+import reactor.kafka.sender.internals.ProducerFactory;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.awaitility.Awaitility.await;
+
+class BookEventPublisherTest {
+
+  private final MockProducer<String, BookEvent> producer =
+      new MockProducer<>(false, new StringSerializer(), new BookEventSerializer());
+  private final KafkaSender<String, BookEvent> kafkaSender = KafkaSender.create(new ProducerFactory() {
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> Producer<K, V> createProducer(SenderOptions<K, V> senderOptions) {
+      return (Producer<K, V>) producer;
+    }
+  }, SenderOptions.create(Map.of()));
+  private final BookEventPublisher publisher = new BookEventPublisher(kafkaSender, new BookKafkaProperties(
+      "localhost:9092", BookKafkaProperties.EventFormat.JSON,
+      new BookKafkaProperties.Producer(true, 65536, Duration.ofMillis(5), "lz4", 64L << 20, 1024,
+          Duration.ofMillis(100), Duration.ofSeconds(15), Duration.ofSeconds(25), 16)));
+
+  @AfterEach
+  void stop() {
+    publisher.stop();
+    kafkaSender.close();
+  }
+
+  @Test
+  void acknowledgedRecordsComplete() {
+    publisher.start();
+
+    StepVerifier.create(publisher.publish("book-topic", "book-1", new BookEvent()))
+        .then(() -> await().until(() -> producer.completeNext()))
+        .verifyComplete();
+  }
+
+  @Test
+  void aFailedSendPipelineFailsTheRecordsItTook() {
+    publisher.start();
+
+    StepVerifier.create(publisher.publish("book-topic", "book-1", new BookEvent()))
+        .then(() -> await().until(() -> producer.errorNext(new IllegalStateException("broker gone"))))
+        .expectErrorMessage("Kafka send pipeline failed: broker gone")
+        .verify(Duration.ofSeconds(5));
+  }
+}
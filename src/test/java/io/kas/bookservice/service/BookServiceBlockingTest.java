@@ -0,0 +1,111 @@
+package io.kas.bookservice.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import io.kas.bookservice.dto.BookDto;
+import io.kas.bookservice.dto.BulkItemResult;
+import io.kas.bookservice.model.Book;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingOperationError;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+// The write pipelines are subscribed on a parallel thread, which BlockHound treats like a Netty event
+// loop: any blocking call on it fails the pipeline with BlockingOperationError. Validation and mapping
+// are offloaded to boundedElastic as with offload mode bounded
+class BookServiceBlockingTest {
+
+  private static final UUID ID = UUID.randomUUID();
+
+  private static BookServiceFixture fixture;
+
+  @BeforeAll
+  static void installBlockHound() {
+    fixture = new BookServiceFixture(Schedulers.boundedElastic());
+    Book stored = BookServiceFixture.book(ID, "The Left Hand of Darkness", 3);
+    when(fixture.bookDao.findById(ID)).thenReturn(Mono.just(stored));
+    when(fixture.bookDao.saveWithSession(any(), any()))
+        .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    when(fixture.bookDao.updateWithSession(eq(ID), anyLong(), any(), any(), any()))
+        .thenAnswer(invocation -> {
+          Book updated = invocation.<Book>getArgument(2).toBuilder().build();
+          updated.setVersion(invocation.<Long>getArgument(1) + 1);
+          return Mono.just(updated);
+        });
+    when(fixture.bookDao.bulkWriteWithSession(any(), any(), any())).thenAnswer(invocation -> {
+      List<Book> books = invocation.getArgument(0);
+      return Mono.just(BulkWriteResult.acknowledged(books.size(), 0, 0, 0, List.of(), List.of()));
+    });
+
+    // Class loading and validator metadata read from disk on first use, once, before detection starts
+    create().block();
+    update().block();
+    bulk().blockLast();
+    fixture.bookCache.invalidate(ID);
+
+    BlockHound.install();
+  }
+
+  @Test
+  void detectsBlockingOnParallelThreads() {
+    StepVerifier.create(Mono.fromCallable(() -> {
+              Thread.sleep(1);
+              return true;
+            })
+            .subscribeOn(Schedulers.parallel()))
+        .expectError(BlockingOperationError.class)
+        .verify();
+  }
+
+  @Test
+  void createDoesNotBlock() {
+    StepVerifier.create(create().subscribeOn(Schedulers.parallel()))
+        .assertNext(created -> assertThat(created.version()).isZero())
+        .verifyComplete();
+  }
+
+  @Test
+  void updateDoesNotBlock() {
+    StepVerifier.create(update().subscribeOn(Schedulers.parallel()))
+        .assertNext(updated -> assertThat(updated.version()).isEqualTo(4L))
+        .verifyComplete();
+  }
+
+  @Test
+  void bulkDoesNotBlock() {
+    StepVerifier.create(bulk().subscribeOn(Schedulers.parallel()))
+        .expectNextCount(3)
+        .verifyComplete();
+  }
+
+  private static Mono<BookDto> create() {
+    return fixture.bookService.saveBook(Mono.just(BookServiceFixture.bookDto(null, "The Dispossessed", null)));
+  }
+
+  private static Mono<BookDto> update() {
+    return Mono.defer(() -> {
+      fixture.bookCache.invalidate(ID);
+      return fixture.bookService.updateBook(
+          Mono.just(BookServiceFixture.bookDto(ID, "The Left Hand of Darkness, revised", 3L)), ID, null);
+    });
+  }
+
+  private static Flux<BulkItemResult> bulk() {
+    return fixture.bookService.bulkSaveBooks(Flux.just(
+        BookServiceFixture.bookLine(null, "Lathe of Heaven", null),
+        BookServiceFixture.bookLine(null, "Always Coming Home", null),
+        BookServiceFixture.bookLine(null, "", null)));
+  }
+}
@@ -0,0 +1,89 @@
+package io.kas.bookservice.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.kas.bookservice.dto.BulkItemResult;
+import io.kas.bookservice.model.OutboxEvent;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookServiceBulkTest {
+
+  private static final UUID FIRST = UUID.randomUUID();
+  private static final UUID SECOND = UUID.randomUUID();
+
+  private final BookServiceFixture fixture = new BookServiceFixture(Schedulers.immediate());
+
+  @Test
+  void malformedLinesAreReportedWithoutEndingTheStream() {
+    when(fixture.bookDao.bulkWriteWithSession(any(), any(), any()))
+        .thenReturn(Mono.just(BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of())));
+
+    StepVerifier.create(fixture.bookService.bulkSaveBooks(Flux.just(
+            BookServiceFixture.bookLine(null, "Dune", null),
+            "{\"title\": ",
+            "",
+            BookServiceFixture.bookLine(null, "Children of Dune", null))))
+        .assertNext(result -> assertThat(result.outcome()).isEqualTo(BulkItemResult.Outcome.CREATED))
+        .assertNext(result -> {
+          assertThat(result.index()).isEqualTo(1);
+          assertThat(result.outcome()).isEqualTo(BulkItemResult.Outcome.INVALID);
+          assertThat(result.error()).startsWith("Malformed JSON");
+        })
+        .assertNext(result -> {
+          assertThat(result.index()).isEqualTo(2);
+          assertThat(result.outcome()).isEqualTo(BulkItemResult.Outcome.CREATED);
+        })
+        .verifyComplete();
+  }
+
+  @Test
+  void aFailedBookAbortsTheTransactionAndTheRestIsWrittenWithItsEvents() {
+    MongoBulkWriteException conflict = new MongoBulkWriteException(
+        BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()),
+        List.of(new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 1)),
+        null, new ServerAddress(), Set.of());
+    when(fixture.bookDao.bulkWriteWithSession(any(), any(), any()))
+        .thenReturn(Mono.error(conflict))
+        .thenReturn(Mono.just(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of())));
+
+    StepVerifier.create(fixture.bookService.bulkSaveBooks(Flux.just(
+            BookServiceFixture.bookLine(FIRST, "Dune", 3L),
+            BookServiceFixture.bookLine(SECOND, "Dune Messiah", 5L))))
+        .assertNext(result -> assertThat(result.outcome()).isEqualTo(BulkItemResult.Outcome.UPDATED))
+        .assertNext(result -> {
+          assertThat(result.id()).isEqualTo(SECOND);
+          assertThat(result.outcome()).isEqualTo(BulkItemResult.Outcome.FAILED);
+          assertThat(result.error()).contains("was modified concurrently, expected version 5");
+        })
+        .verifyComplete();
+
+    verify(fixture.session).abortTransaction();
+    verify(fixture.session).commitTransaction();
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<OutboxEvent>> events = ArgumentCaptor.forClass(List.class);
+    verify(fixture.outboxDao, times(1)).saveAllWithSession(events.capture(), eq(fixture.session));
+    assertThat(events.getValue()).singleElement().satisfies(event -> {
+      assertThat(event.getKey()).isEqualTo(FIRST.toString());
+      assertThat(event.getEvent().getPayload().getVersion()).isEqualTo(4L);
+    });
+  }
+}
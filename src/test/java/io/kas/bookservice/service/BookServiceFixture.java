@@ -0,0 +1,120 @@
+package io.kas.bookservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.reactivestreams.client.ClientSession;
+import io.kas.bookservice.cache.BookCache;
+import io.kas.bookservice.config.BulkProperties;
+import io.kas.bookservice.config.CacheProperties;
+import io.kas.bookservice.config.EventsProperties;
+import io.kas.bookservice.config.ExportProperties;
+import io.kas.bookservice.config.IdempotencyProperties;
+import io.kas.bookservice.config.PaginationProperties;
+import io.kas.bookservice.config.SearchIndexProperties;
+import io.kas.bookservice.config.SearchProperties;
+import io.kas.bookservice.config.UpdateProperties;
+import io.kas.bookservice.config.WriteProperties;
+import io.kas.bookservice.dto.BookDto;
+import io.kas.bookservice.index.BookSearchIndex;
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.model.Category;
+import io.kas.bookservice.model.Language;
+import io.kas.bookservice.model.Status;
+import io.kas.bookservice.repository.BookDao;
+import io.kas.bookservice.repository.CatalogStatsDao;
+import io.kas.bookservice.repository.IdempotencyDao;
+import io.kas.bookservice.repository.OutboxDao;
+import io.kas.bookservice.util.mapper.BookMapper;
+import io.kas.bookservice.util.metrics.BookMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// BookService over mocked DAOs. Sessions, the outbox and the catalog counters succeed, book reads
+// and writes are stubbed by each test
+final class BookServiceFixture {
+
+  private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+  final BookDao bookDao = mock(BookDao.class);
+  final OutboxDao outboxDao = mock(OutboxDao.class);
+  final IdempotencyDao idempotencyDao = mock(IdempotencyDao.class);
+  final CatalogStatsDao catalogStatsDao = mock(CatalogStatsDao.class);
+  final ClientSession session = mock(ClientSession.class);
+  final BookCache bookCache;
+  final BookService bookService;
+
+  BookServiceFixture(Scheduler offloadScheduler) {
+    this(offloadScheduler, WriteProperties.WriteMode.TRANSACTIONAL, EventsProperties.Source.OUTBOX);
+  }
+
+  BookServiceFixture(Scheduler offloadScheduler, WriteProperties.WriteMode writeMode,
+                     EventsProperties.Source eventSource) {
+    when(bookDao.startSession()).thenReturn(Mono.just(session));
+    when(session.commitTransaction()).thenReturn(Mono.empty());
+    when(session.abortTransaction()).thenReturn(Mono.empty());
+    when(outboxDao.saveWithSession(any(), any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    when(outboxDao.saveAllWithSession(any(), any())).thenReturn(Mono.empty());
+    when(catalogStatsDao.applyDeltas(any())).thenReturn(Mono.empty());
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    bookCache = new BookCache(bookDao, new CacheProperties(1000, Duration.ofMinutes(10),
+        new CacheProperties.OffHeap(false, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1), 1000, Duration.ofHours(1))),
+        registry);
+    SearchIndexProperties searchIndexProperties = new SearchIndexProperties(false, 5000, 10, 50);
+    bookService = new BookService(
+        bookDao,
+        bookCache,
+        new BookSearchIndex(bookDao, searchIndexProperties, registry),
+        BookMapper.INSTANCE,
+        outboxDao,
+        idempotencyDao,
+        catalogStatsDao,
+        new PaginationProperties(20, 200, 500),
+        new SearchProperties(20, 100, 1000, Duration.ofSeconds(2)),
+        searchIndexProperties,
+        new ExportProperties(1000),
+        new BulkProperties(100, 2),
+        new UpdateProperties(3, Duration.ofMillis(1)),
+        new IdempotencyProperties(Duration.ofHours(24), 255, 3, Duration.ofMillis(1)),
+        new WriteProperties(writeMode),
+        new EventsProperties(eventSource, new EventsProperties.ChangeStream(
+            500, Duration.ofMillis(50), Duration.ofSeconds(30), Duration.ofSeconds(10))),
+        Validation.buildDefaultValidatorFactory().getValidator(),
+        OBJECT_MAPPER,
+        offloadScheduler,
+        new BookMetrics(registry));
+  }
+
+  static BookDto bookDto(UUID id, String title, Long version) {
+    return new BookDto(id, title, List.of("Ursula K. Le Guin"), "A novel", null, Category.FICTION, "Ace",
+        1969, Language.EN, 304, new BigDecimal("12.50"), null, null, null, Status.PUBLISHED, version);
+  }
+
+  // One NDJSON line of a bulk request
+  static String bookLine(UUID id, String title, Long version) {
+    try {
+      return OBJECT_MAPPER.writeValueAsString(bookDto(id, title, version));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  static Book book(UUID id, String title, long version) {
+    Book book = BookMapper.INSTANCE.toEntity(bookDto(id, title, version));
+    book.setEffectivePrice(book.getPrice());
+    return book;
+  }
+}
@@ -0,0 +1,125 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.dto.BookDto;
+import io.kas.bookservice.exception.DuplicateRequestException;
+import io.kas.bookservice.exception.InvalidRequestException;
+import io.kas.bookservice.model.IdempotencyRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookServiceIdempotencyTest {
+
+  private static final String KEY = "order-42";
+
+  private final BookServiceFixture fixture = new BookServiceFixture(Schedulers.immediate());
+  private final BookDto request = BookServiceFixture.bookDto(null, "The Dispossessed", null);
+
+  @BeforeEach
+  void stubWrites() {
+    when(fixture.bookDao.saveWithSession(any(), any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    when(fixture.idempotencyDao.saveWithSession(any(), any()))
+        .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+  }
+
+  @Test
+  void firstRequestClaimsTheKeyInTheBooksTransaction() {
+    when(fixture.idempotencyDao.findByKey(KEY)).thenReturn(Mono.empty());
+
+    StepVerifier.create(fixture.bookService.saveBook(Mono.just(request), KEY))
+        .assertNext(created -> assertThat(created.id()).isNotNull())
+        .verifyComplete();
+
+    ArgumentCaptor<IdempotencyRecord> claim = ArgumentCaptor.forClass(IdempotencyRecord.class);
+    verify(fixture.idempotencyDao).saveWithSession(claim.capture(), any());
+    assertThat(claim.getValue().getKey()).isEqualTo(KEY);
+    verify(fixture.session).startTransaction();
+    verify(fixture.session).commitTransaction();
+  }
+
+  @Test
+  void retryReplaysTheStoredResultWithoutWriting() {
+    IdempotencyRecord record = firstRequest();
+
+    StepVerifier.create(fixture.bookService.saveBook(Mono.just(request), KEY))
+        .assertNext(replayed -> assertThat(replayed.id()).isEqualTo(record.getBook().getId()))
+        .verifyComplete();
+    verify(fixture.bookDao, never()).saveWithSession(any(), any());
+    verify(fixture.outboxDao, never()).saveWithSession(any(), any());
+  }
+
+  @Test
+  void sameKeyWithAnotherBodyIsRejected() {
+    firstRequest();
+
+    StepVerifier.create(fixture.bookService.saveBook(
+            Mono.just(BookServiceFixture.bookDto(null, "The Word for World Is Forest", null)), KEY))
+        .expectErrorSatisfies(error -> assertThat(error)
+            .isInstanceOf(InvalidRequestException.class)
+            .hasMessageContaining("different request body"))
+        .verify();
+    verify(fixture.bookDao, never()).saveWithSession(any(), any());
+  }
+
+  @Test
+  void concurrentDuplicateRollsBackAndReplaysTheWinner() {
+    IdempotencyRecord record = firstRequest();
+    when(fixture.idempotencyDao.findByKey(KEY)).thenReturn(Mono.empty(), Mono.just(record));
+    doReturn(Mono.error(new DuplicateRequestException("Idempotency-Key " + KEY + " is already in use", null)))
+        .when(fixture.idempotencyDao).saveWithSession(any(), any());
+
+    StepVerifier.create(fixture.bookService.saveBook(Mono.just(request), KEY))
+        .assertNext(replayed -> assertThat(replayed.id()).isEqualTo(record.getBook().getId()))
+        .verifyComplete();
+    verify(fixture.session).abortTransaction();
+    verify(fixture.session, never()).commitTransaction();
+    verify(fixture.outboxDao, never()).saveWithSession(any(), any());
+  }
+
+  @Test
+  void duplicateThatNeverCommitsFailsAfterTheRetries() {
+    when(fixture.idempotencyDao.findByKey(KEY)).thenReturn(Mono.empty());
+    doReturn(Mono.error(new DuplicateRequestException("Idempotency-Key " + KEY + " is already in use", null)))
+        .when(fixture.idempotencyDao).saveWithSession(any(), any());
+
+    StepVerifier.create(fixture.bookService.saveBook(Mono.just(request), KEY))
+        .expectError(DuplicateRequestException.class)
+        .verify();
+    verify(fixture.session, times(4)).abortTransaction();
+  }
+
+  @Test
+  void blankOrOverlongKeysAreRejected() {
+    StepVerifier.create(fixture.bookService.saveBook(Mono.just(request), " "))
+        .expectError(InvalidRequestException.class)
+        .verify();
+    StepVerifier.create(fixture.bookService.saveBook(Mono.just(request), "k".repeat(256)))
+        .expectError(InvalidRequestException.class)
+        .verify();
+    verify(fixture.idempotencyDao, never()).findByKey(anyString());
+  }
+
+  // Runs a first request and returns the record it claimed, findByKey then answers with it
+  private IdempotencyRecord firstRequest() {
+    when(fixture.idempotencyDao.findByKey(KEY)).thenReturn(Mono.empty());
+    fixture.bookService.saveBook(Mono.just(request), KEY).block();
+    ArgumentCaptor<IdempotencyRecord> claim = ArgumentCaptor.forClass(IdempotencyRecord.class);
+    verify(fixture.idempotencyDao).saveWithSession(claim.capture(), any());
+    when(fixture.idempotencyDao.findByKey(KEY)).thenReturn(Mono.just(claim.getValue()));
+    clearInvocations(fixture.bookDao, fixture.outboxDao, fixture.idempotencyDao, fixture.session);
+    return claim.getValue();
+  }
+}
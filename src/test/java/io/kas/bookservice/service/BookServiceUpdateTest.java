@@ -0,0 +1,67 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.exception.OptimisticLockingFailureException;
+import io.kas.bookservice.model.Book;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookServiceUpdateTest {
+
+  private static final UUID ID = UUID.randomUUID();
+  private static final String TITLE = "The Left Hand of Darkness";
+
+  private final BookServiceFixture fixture = new BookServiceFixture(Schedulers.immediate());
+
+  @Test
+  void unchangedBookIsNotWrittenWhenTheCopyIsCurrent() {
+    when(fixture.bookDao.findById(ID)).thenReturn(Mono.just(BookServiceFixture.book(ID, TITLE, 3)));
+    when(fixture.bookDao.findVersionById(ID)).thenReturn(Mono.just(3L));
+
+    StepVerifier.create(fixture.bookService.updateBook(Mono.just(BookServiceFixture.bookDto(ID, TITLE, null)), ID, 3L))
+        .assertNext(book -> assertThat(book.version()).isEqualTo(3L))
+        .verifyComplete();
+    verify(fixture.bookDao, never()).updateWithSession(any(), any(Long.class), any(), any(), any());
+  }
+
+  @Test
+  void unchangedBookAgainstAStaleCachedCopyIsAConflict() {
+    fixture.bookCache.put(BookServiceFixture.book(ID, TITLE, 3));
+    when(fixture.bookDao.findVersionById(ID)).thenReturn(Mono.just(4L));
+
+    StepVerifier.create(fixture.bookService.updateBook(Mono.just(BookServiceFixture.bookDto(ID, TITLE, null)), ID, 3L))
+        .expectError(OptimisticLockingFailureException.class)
+        .verify();
+  }
+
+  @Test
+  void unversionedUpdateAgainstAStaleCachedCopyIsWrittenAgainstTheStoredBook() {
+    fixture.bookCache.put(BookServiceFixture.book(ID, TITLE, 3));
+    Book stored = BookServiceFixture.book(ID, "The Left Hand of Darkness, revised", 4);
+    when(fixture.bookDao.findVersionById(ID)).thenReturn(Mono.just(4L));
+    when(fixture.bookDao.findById(ID)).thenReturn(Mono.just(stored));
+    when(fixture.bookDao.updateWithSession(eq(ID), eq(4L), any(), any(), any()))
+        .thenAnswer(invocation -> {
+          Book updated = invocation.<Book>getArgument(2).toBuilder().build();
+          updated.setVersion(5L);
+          return Mono.just(updated);
+        });
+
+    StepVerifier.create(fixture.bookService.updateBook(Mono.just(BookServiceFixture.bookDto(ID, TITLE, null)), ID, null))
+        .assertNext(book -> {
+          assertThat(book.title()).isEqualTo(TITLE);
+          assertThat(book.version()).isEqualTo(5L);
+        })
+        .verifyComplete();
+  }
+}
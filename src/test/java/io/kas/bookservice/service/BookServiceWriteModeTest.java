@@ -0,0 +1,50 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.config.EventsProperties;
+import io.kas.bookservice.config.WriteProperties;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookServiceWriteModeTest {
+
+  private static final UUID ID = UUID.randomUUID();
+
+  @Test
+  void singleDocumentWritesWithAnOutboxEventStayTransactional() {
+    BookServiceFixture fixture = deleting(EventsProperties.Source.OUTBOX);
+
+    StepVerifier.create(fixture.bookService.deleteBook(ID)).verifyComplete();
+
+    verify(fixture.session).startTransaction();
+    verify(fixture.session).commitTransaction();
+    verify(fixture.outboxDao).saveWithSession(any(), eq(fixture.session));
+  }
+
+  @Test
+  void singleDocumentWritesSkipTheTransactionWithTheChangeStream() {
+    BookServiceFixture fixture = deleting(EventsProperties.Source.CHANGE_STREAM);
+
+    StepVerifier.create(fixture.bookService.deleteBook(ID)).verifyComplete();
+
+    verify(fixture.session, never()).startTransaction();
+    verify(fixture.outboxDao, never()).saveWithSession(any(), any());
+  }
+
+  private static BookServiceFixture deleting(EventsProperties.Source eventSource) {
+    BookServiceFixture fixture = new BookServiceFixture(Schedulers.immediate(),
+        WriteProperties.WriteMode.SINGLE_DOCUMENT, eventSource);
+    when(fixture.bookDao.findAndDeleteWithSession(eq(ID), any()))
+        .thenReturn(Mono.just(BookServiceFixture.book(ID, "Dune", 2)));
+    return fixture;
+  }
+}
@@ -0,0 +1,76 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.config.OutboxProperties;
+import io.kas.bookservice.dto.events.BookEvent;
+import io.kas.bookservice.model.OutboxEvent;
+import io.kas.bookservice.repository.ChangeStreamStateDao;
+import io.kas.bookservice.repository.OutboxDao;
+import io.kas.bookservice.util.metrics.BookMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+  private final OutboxDao outboxDao = mock(OutboxDao.class);
+  private final ChangeStreamStateDao leaseDao = mock(ChangeStreamStateDao.class);
+  private final BookEventPublisher publisher = mock(BookEventPublisher.class);
+  private final OutboxRelay relay = new OutboxRelay(outboxDao, leaseDao, publisher,
+      new OutboxProperties("book-topic", 10, Duration.ofMillis(200), Duration.ofSeconds(5), Duration.ofMinutes(2)),
+      new BookMetrics(new SimpleMeterRegistry()));
+
+  @Test
+  void standsByWhileTheLeaseIsHeldElsewhere() {
+    when(leaseDao.acquireLease(eq("outbox-relay"), anyString(), any())).thenReturn(Mono.just(false));
+
+    StepVerifier.create(relay.relay()).verifyComplete();
+
+    verify(outboxDao, never()).findOldest(anyInt());
+    verify(publisher, never()).publish(any(), any(), any());
+  }
+
+  @Test
+  void relaysEveryPendingEventOfTheOldestKeysInSequenceOrder() {
+    // The second update of book-1 got the smaller _id but committed after the first
+    OutboxEvent second = event("book-1", 2L);
+    OutboxEvent first = event("book-1", 1L);
+    when(leaseDao.acquireLease(eq("outbox-relay"), anyString(), any())).thenReturn(Mono.just(true));
+    when(outboxDao.findOldest(10)).thenReturn(Flux.just(second));
+    when(outboxDao.findPendingByKeys(List.of("book-1"))).thenReturn(Flux.just(first, second));
+    when(outboxDao.deleteByIds(any())).thenReturn(Mono.just(2L));
+    when(publisher.publish(any(), any(), any())).thenReturn(Mono.empty());
+
+    StepVerifier.create(relay.relay()).verifyComplete();
+
+    InOrder order = inOrder(publisher, outboxDao);
+    order.verify(publisher).publish("book-topic", "book-1", first.getEvent());
+    order.verify(publisher).publish("book-topic", "book-1", second.getEvent());
+    order.verify(outboxDao).deleteByIds(List.of(first.getId(), second.getId()));
+  }
+
+  private static OutboxEvent event(String key, long sequence) {
+    return OutboxEvent.builder()
+        .id(new ObjectId())
+        .key(key)
+        .sequence(sequence)
+        .event(mock(BookEvent.class))
+        .build();
+  }
+}
@@ -0,0 +1,69 @@
+package io.kas.bookservice.service;
+
+import io.kas.bookservice.config.PricingProperties;
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.repository.BookDao;
+import io.kas.bookservice.repository.ChangeStreamStateDao;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PriceSweeperTest {
+
+  private final BookDao bookDao = mock(BookDao.class);
+  private final BookService bookService = mock(BookService.class);
+  private final ChangeStreamStateDao leaseDao = mock(ChangeStreamStateDao.class);
+  private final PriceSweeper sweeper = new PriceSweeper(bookDao, bookService, leaseDao,
+      new PricingProperties(Duration.ofSeconds(30), 10, true, Duration.ofMinutes(5)));
+
+  @Test
+  void aCompletedBackfillIsNotRunAgain() {
+    when(leaseDao.findCompletedAt("price-backfill")).thenReturn(Mono.just(Instant.now()));
+
+    sweeper.backfill();
+
+    verify(leaseDao, never()).acquireLease(any(), any(), any());
+    verify(bookDao, never()).findMissingEffectivePrice(any(), anyInt());
+  }
+
+  @Test
+  void theLeaseHolderRecordsCompletion() {
+    Book book = Book.builder().id(UUID.randomUUID()).version(1L).build();
+    when(leaseDao.findCompletedAt("price-backfill")).thenReturn(Mono.empty());
+    when(leaseDao.acquireLease(eq("price-backfill"), anyString(), any())).thenReturn(Mono.just(true));
+    when(leaseDao.markCompleted(eq("price-backfill"), anyString())).thenReturn(Mono.just(true));
+    when(bookDao.findMissingEffectivePrice(isNull(), eq(10))).thenReturn(Flux.just(book));
+    when(bookService.reprice(eq(book), any())).thenReturn(Mono.just(book));
+
+    sweeper.backfill();
+
+    verify(bookService, timeout(1000)).reprice(eq(book), any());
+    verify(leaseDao, timeout(1000)).markCompleted(eq("price-backfill"), anyString());
+  }
+
+  @Test
+  void aLeaseHeldElsewhereLeavesThePassToItsHolder() {
+    when(leaseDao.findCompletedAt("price-backfill")).thenReturn(Mono.empty());
+    when(leaseDao.acquireLease(eq("price-backfill"), anyString(), any())).thenReturn(Mono.just(false));
+    when(leaseDao.markCompleted(eq("price-backfill"), anyString())).thenReturn(Mono.just(false));
+
+    sweeper.backfill();
+
+    verify(bookDao, never()).findMissingEffectivePrice(any(), anyInt());
+  }
+}
@@ -0,0 +1,65 @@
+package io.kas.bookservice.util.http;
+
+import io.kas.bookservice.exception.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ETagsTest {
+
+  private static final UUID ID = UUID.fromString("0f8fad5b-d9cb-469f-a165-70867728950e");
+
+  @Test
+  void parsesStrongAndWeakTags() {
+    assertThat(ETags.parse(ETags.of(ID, 7))).isEqualTo(new ETags.Tag(ID, 7));
+    assertThat(ETags.parse(" W/" + ETags.of(ID, 12) + " ")).isEqualTo(new ETags.Tag(ID, 12));
+  }
+
+  @Test
+  void rejectsMalformedTags() {
+    assertThatThrownBy(() -> ETags.parse(null)).isInstanceOf(InvalidRequestException.class);
+    assertThatThrownBy(() -> ETags.parse("\"")).isInstanceOf(InvalidRequestException.class);
+    assertThatThrownBy(() -> ETags.parse(ID + "-1")).isInstanceOf(InvalidRequestException.class);
+    assertThatThrownBy(() -> ETags.parse("\"" + ID + "\"")).isInstanceOf(InvalidRequestException.class);
+    assertThatThrownBy(() -> ETags.parse("\"not-a-uuid-3\"")).isInstanceOf(InvalidRequestException.class);
+    assertThatThrownBy(() -> ETags.parse("\"" + ID + "-x\"")).isInstanceOf(InvalidRequestException.class);
+    assertThatThrownBy(() -> ETags.parse("\"-3\"")).isInstanceOf(InvalidRequestException.class);
+  }
+
+  @Test
+  void parseVersionReadsTheVersionOfTheSameBook() {
+    assertThat(ETags.parseVersion(ETags.of(ID, 0), ID)).isZero();
+    assertThat(ETags.parseVersion(" " + ETags.of(ID, 42) + " ", ID)).isEqualTo(42L);
+  }
+
+  @Test
+  void parseVersionWithoutHeaderIsNull() {
+    assertThat(ETags.parseVersion(null, ID)).isNull();
+    assertThat(ETags.parseVersion("  ", ID)).isNull();
+  }
+
+  @Test
+  void parseVersionRejectsWeakForeignAndMalformedTags() {
+    assertThatThrownBy(() -> ETags.parseVersion("W/" + ETags.of(ID, 1), ID))
+        .isInstanceOf(InvalidRequestException.class);
+    assertThatThrownBy(() -> ETags.parseVersion(ETags.of(UUID.randomUUID(), 1), ID))
+        .isInstanceOf(InvalidRequestException.class)
+        .hasMessageContaining(ID.toString());
+    assertThatThrownBy(() -> ETags.parseVersion("\"" + ID + "-one\"", ID))
+        .isInstanceOf(InvalidRequestException.class);
+    assertThatThrownBy(() -> ETags.parseVersion("\"7\"", ID)).isInstanceOf(InvalidRequestException.class);
+    assertThatThrownBy(() -> ETags.parseVersion("*", ID)).isInstanceOf(InvalidRequestException.class);
+  }
+
+  @Test
+  void matchesAnyListedTagWeakly() {
+    String current = ETags.of(ID, 5);
+    assertThat(ETags.matches(current, ID, 5)).isTrue();
+    assertThat(ETags.matches(ETags.of(ID, 4) + ", W/" + current, ID, 5)).isTrue();
+    assertThat(ETags.matches("*", ID, 5)).isTrue();
+    assertThat(ETags.matches(ETags.of(ID, 4), ID, 5)).isFalse();
+  }
+}
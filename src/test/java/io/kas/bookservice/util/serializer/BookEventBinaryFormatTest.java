@@ -0,0 +1,119 @@
+package io.kas.bookservice.util.serializer;
+
+import io.kas.bookservice.dto.events.BookEvent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookEventBinaryFormatTest {
+
+  private static final Instant OCCURRED_AT = Instant.parse("2025-03-14T15:09:26.535897932Z");
+
+  @Test
+  void roundTripsAFullEvent() {
+    BookEvent.Payload payload = new BookEvent.Payload();
+    payload.setBookId(UUID.randomUUID());
+    payload.setVersion(0L);
+    payload.setTitle("Пикник на обочине");
+    payload.setAuthors(List.of("Arkady Strugatsky", "Boris Strugatsky"));
+    payload.setDescription("A".repeat(1000));
+    payload.setCoverImage("https://example.com/cover.png");
+    payload.setCategory("FICTION");
+    payload.setPublisher("Molodaya Gvardiya");
+    payload.setPublishedYear(1972);
+    payload.setLanguage("RU");
+    payload.setPageCount(224);
+    payload.setPrice(new BigDecimal("1234567890.125"));
+    payload.setDiscount(15);
+    payload.setEffectivePrice(new BigDecimal("1049382706.61"));
+    payload.setStatus("PUBLISHED");
+
+    assertRoundTrip(event("BOOK_CREATED", payload));
+  }
+
+  @Test
+  void roundTripsADeltaEventWithoutTheUnchangedFields() {
+    BookEvent.Payload payload = new BookEvent.Payload();
+    payload.setBookId(UUID.randomUUID());
+    payload.setVersion(Long.MAX_VALUE);
+    payload.setChangedFields(List.of("title", "price", "effectivePrice"));
+    payload.setTitle("Roadside Picnic");
+    payload.setPrice(new BigDecimal("-0.01"));
+    payload.setEffectivePrice(BigDecimal.ZERO);
+
+    BookEvent decoded = assertRoundTrip(event("BOOK_UPDATED", payload));
+    assertThat(decoded.getPayload().getAuthors()).isNull();
+    assertThat(decoded.getPayload().getPublishedYear()).isNull();
+  }
+
+  @Test
+  void roundTripsAnEventTypeOutsideTheKnownOnes() {
+    BookEvent.Payload payload = new BookEvent.Payload();
+    payload.setBookId(UUID.randomUUID());
+    payload.setPublishedYear(-350);
+
+    assertRoundTrip(event("BOOK_ARCHIVED", payload));
+  }
+
+  @Test
+  void timestampIsTakenFromOccurredAt() {
+    BookEvent.Payload payload = new BookEvent.Payload();
+    payload.setBookId(UUID.randomUUID());
+
+    BookEvent decoded = BookEventBinaryFormat.decode(BookEventBinaryFormat.encode(event("BOOK_DELETED", payload)));
+    assertThat(decoded.getPayload().getTimestamp()).isEqualTo(OCCURRED_AT);
+  }
+
+  @Test
+  void tellsBinaryFromJson() {
+    BookEvent.Payload payload = new BookEvent.Payload();
+    payload.setBookId(UUID.randomUUID());
+
+    assertThat(BookEventBinaryFormat.isBinary(BookEventBinaryFormat.encode(event("BOOK_DELETED", payload)))).isTrue();
+    assertThat(BookEventBinaryFormat.isBinary("{\"eventId\":1}".getBytes(StandardCharsets.UTF_8))).isFalse();
+  }
+
+  @Test
+  void rejectsTruncatedAndUnknownSchemaVersions() {
+    BookEvent.Payload payload = new BookEvent.Payload();
+    payload.setBookId(UUID.randomUUID());
+    payload.setTitle("Roadside Picnic");
+    byte[] encoded = BookEventBinaryFormat.encode(event("BOOK_CREATED", payload));
+
+    assertThatThrownBy(() -> BookEventBinaryFormat.decode(Arrays.copyOf(encoded, encoded.length - 3)))
+        .isInstanceOf(IllegalArgumentException.class);
+    encoded[1] = BookEventBinaryFormat.SCHEMA_VERSION + 1;
+    assertThatThrownBy(() -> BookEventBinaryFormat.decode(encoded))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("schema version");
+  }
+
+  @Test
+  void rejectsChangedFieldsWithoutAMaskBit() {
+    BookEvent.Payload payload = new BookEvent.Payload();
+    payload.setBookId(UUID.randomUUID());
+    payload.setChangedFields(List.of("isbn"));
+
+    assertThatThrownBy(() -> BookEventBinaryFormat.encode(event("BOOK_UPDATED", payload)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static BookEvent event(String eventType, BookEvent.Payload payload) {
+    payload.setTimestamp(OCCURRED_AT);
+    return new BookEvent(UUID.randomUUID(), eventType, OCCURRED_AT, payload);
+  }
+
+  private static BookEvent assertRoundTrip(BookEvent event) {
+    BookEvent decoded = BookEventBinaryFormat.decode(BookEventBinaryFormat.encode(event));
+    assertThat(decoded).usingRecursiveComparison().isEqualTo(event);
+    return decoded;
+  }
+}
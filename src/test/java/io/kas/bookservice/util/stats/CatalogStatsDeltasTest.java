@@ -0,0 +1,157 @@
+package io.kas.bookservice.util.stats;
+
+import io.kas.bookservice.model.Book;
+import io.kas.bookservice.model.CatalogStat;
+import io.kas.bookservice.model.CatalogStatsResult;
+import io.kas.bookservice.model.Category;
+import io.kas.bookservice.model.Language;
+import io.kas.bookservice.model.Status;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogStatsDeltasTest {
+
+  @Test
+  void createCountsTheBookInEachOfItsBuckets() {
+    Map<String, CatalogStat> deltas = byId(CatalogStatsDeltas.between(null, book(Category.FICTION, "12.50")));
+
+    assertThat(deltas).containsOnlyKeys("total", "category:FICTION", "language:EN", "status:PUBLISHED");
+    assertThat(deltas.values()).allSatisfy(delta -> {
+      assertThat(delta.getCount()).isEqualTo(1);
+      assertThat(delta.getPricedCount()).isEqualTo(1);
+      assertThat(delta.getPriceSum()).isEqualByComparingTo("12.50");
+    });
+    assertThat(deltas.get("category:FICTION").getDimension()).isEqualTo(CatalogStatsDeltas.CATEGORY);
+    assertThat(deltas.get("category:FICTION").getValue()).isEqualTo("FICTION");
+    assertThat(deltas.get("total").getValue()).isNull();
+  }
+
+  @Test
+  void deleteUncountsIt() {
+    Map<String, CatalogStat> deltas = byId(CatalogStatsDeltas.between(book(Category.FICTION, "12.50"), null));
+
+    assertThat(deltas.get("total").getCount()).isEqualTo(-1);
+    assertThat(deltas.get("total").getPriceSum()).isEqualByComparingTo("-12.50");
+  }
+
+  @Test
+  void updateMovesOnlyTheBucketsThatChanged() {
+    Map<String, CatalogStat> deltas = byId(CatalogStatsDeltas.between(
+        book(Category.FICTION, "12.50"), book(Category.SCIENCE, "12.50")));
+
+    assertThat(deltas).containsOnlyKeys("category:FICTION", "category:SCIENCE");
+    assertThat(deltas.get("category:FICTION").getCount()).isEqualTo(-1);
+    assertThat(deltas.get("category:SCIENCE").getCount()).isEqualTo(1);
+  }
+
+  @Test
+  void repricingMovesOnlyThePriceSums() {
+    Map<String, CatalogStat> deltas = byId(CatalogStatsDeltas.between(
+        book(Category.FICTION, "12.50"), book(Category.FICTION, "10.00")));
+
+    assertThat(deltas).containsOnlyKeys("total", "category:FICTION", "language:EN", "status:PUBLISHED");
+    assertThat(deltas.values()).allSatisfy(delta -> {
+      assertThat(delta.getCount()).isZero();
+      assertThat(delta.getPricedCount()).isZero();
+      assertThat(delta.getPriceSum()).isEqualByComparingTo("-2.50");
+    });
+  }
+
+  @Test
+  void samePriceAtAnotherScaleIsNoChange() {
+    assertThat(CatalogStatsDeltas.between(book(Category.FICTION, "12.5"), book(Category.FICTION, "12.50"))).isEmpty();
+  }
+
+  @Test
+  void unpricedBooksCountButAddNoPrice() {
+    Map<String, CatalogStat> deltas = byId(CatalogStatsDeltas.between(
+        book(Category.FICTION, null), book(Category.FICTION, "8.00")));
+
+    assertThat(deltas.get("total").getCount()).isZero();
+    assertThat(deltas.get("total").getPricedCount()).isEqualTo(1);
+    assertThat(deltas.get("total").getPriceSum()).isEqualByComparingTo("8.00");
+  }
+
+  @Test
+  void booksWithoutAFieldAreLeftOutOfItsBuckets() {
+    Book book = book(Category.FICTION, "5.00");
+    book.setCategory(null);
+    book.setStatus(null);
+
+    assertThat(byId(CatalogStatsDeltas.between(null, book))).containsOnlyKeys("total", "language:EN");
+  }
+
+  @Test
+  void deltasOfOneChunkAddUp() {
+    Map<String, CatalogStat> deltas = new HashMap<>();
+    CatalogStatsDeltas.add(deltas, book(Category.FICTION, "10.00"), 1);
+    CatalogStatsDeltas.add(deltas, book(Category.SCIENCE, "20.00"), 1);
+    CatalogStatsDeltas.add(deltas, book(Category.SCIENCE, "20.00"), -1);
+
+    Map<String, CatalogStat> merged = byId(CatalogStatsDeltas.nonZero(deltas));
+    assertThat(merged).doesNotContainKey("category:SCIENCE");
+    assertThat(merged.get("total").getCount()).isEqualTo(1);
+    assertThat(merged.get("total").getPriceSum()).isEqualByComparingTo("10.00");
+  }
+
+  @Test
+  void correctionMovesStoredCountersToTheAggregatedOnes() {
+    CatalogStatsResult result = new CatalogStatsResult();
+    result.setTotal(List.of(bucket(null, 3, 2, "30.00")));
+    result.setCategories(List.of(bucket("FICTION", 2, 2, "30.00"), bucket(null, 1, 0, "0")));
+    result.setLanguages(List.of(bucket("EN", 3, 2, "30.00")));
+    result.setStatuses(List.of());
+    List<CatalogStat> aggregated = CatalogStatsDeltas.fromAggregation(result);
+    assertThat(aggregated).extracting(CatalogStat::getId).containsExactlyInAnyOrder("total", "category:FICTION", "language:EN");
+
+    List<CatalogStat> stored = List.of(
+        stat("total", "total", null, 4, 2, "30.00"),
+        stat("category:FICTION", "category", "FICTION", 2, 2, "30.00"),
+        stat("category:SCIENCE", "category", "SCIENCE", 1, 0, "0"),
+        stat("reconciliation", "reconciliation", null, 0, 0, "0"));
+
+    Map<String, CatalogStat> corrections = byId(CatalogStatsDeltas.correction(aggregated, stored));
+    assertThat(corrections).containsOnlyKeys("total", "category:SCIENCE", "language:EN");
+    assertThat(corrections.get("total").getCount()).isEqualTo(-1);
+    assertThat(corrections.get("category:SCIENCE").getCount()).isEqualTo(-1);
+    assertThat(corrections.get("language:EN").getCount()).isEqualTo(3);
+    assertThat(corrections.get("language:EN").getPriceSum()).isEqualByComparingTo("30.00");
+  }
+
+  private static Book book(Category category, String effectivePrice) {
+    return Book.builder()
+        .title("The Left Hand of Darkness")
+        .category(category)
+        .language(Language.EN)
+        .status(Status.PUBLISHED)
+        .effectivePrice(effectivePrice == null ? null : new BigDecimal(effectivePrice))
+        .build();
+  }
+
+  private static CatalogStatsResult.Bucket bucket(String value, long count, long pricedCount, String priceSum) {
+    CatalogStatsResult.Bucket bucket = new CatalogStatsResult.Bucket();
+    bucket.setValue(value);
+    bucket.setCount(count);
+    bucket.setPricedCount(pricedCount);
+    bucket.setPriceSum(new BigDecimal(priceSum));
+    return bucket;
+  }
+
+  private static CatalogStat stat(String id, String dimension, String value, long count, long pricedCount,
+                                  String priceSum) {
+    return new CatalogStat(id, dimension, value, count, pricedCount, new BigDecimal(priceSum), null);
+  }
+
+  private static Map<String, CatalogStat> byId(Collection<CatalogStat> stats) {
+    return stats.stream().collect(Collectors.toMap(CatalogStat::getId, Function.identity()));
+  }
+}